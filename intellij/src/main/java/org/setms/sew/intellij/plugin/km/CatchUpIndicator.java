@@ -0,0 +1,75 @@
+package org.setms.sew.intellij.plugin.km;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
+import com.intellij.openapi.project.Project;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.setms.km.domain.model.orchestration.CatchUpListener;
+import org.setms.km.domain.model.orchestration.CatchUpProgress;
+
+/** Shows the progress of validating artifacts that changed while the project was closed. */
+@RequiredArgsConstructor
+final class CatchUpIndicator implements CatchUpListener {
+
+  private static final long MAX_WAIT_MILLIS = 500;
+
+  private final Project project;
+  private CatchUpProgress latest;
+  private boolean showing;
+
+  @Override
+  public void progressed(CatchUpProgress progress) {
+    if (ApplicationManager.getApplication().isHeadlessEnvironment()) {
+      return;
+    }
+    if (startShowing(progress)) {
+      // Always in the background, since progress is reported by the threads that validate
+      var task = new Validating();
+      ProgressManager.getInstance()
+          .runProcessWithProgressAsynchronously(task, new BackgroundableProcessIndicator(task));
+    }
+  }
+
+  private synchronized boolean startShowing(CatchUpProgress progress) {
+    latest = progress;
+    notifyAll();
+    if (showing || progress.isDone()) {
+      return false;
+    }
+    showing = true;
+    return true;
+  }
+
+  private synchronized void show(ProgressIndicator indicator) throws InterruptedException {
+    indicator.setIndeterminate(false);
+    try {
+      while (!latest.isDone()) {
+        indicator.setFraction((double) latest.completed() / latest.total());
+        indicator.setText2("%d of %d artifacts".formatted(latest.completed(), latest.total()));
+        wait(MAX_WAIT_MILLIS);
+      }
+    } finally {
+      showing = false;
+    }
+  }
+
+  private class Validating extends Task.Backgroundable {
+
+    Validating() {
+      super(project, "Validating changed artifacts", false);
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+      try {
+        show(indicator);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
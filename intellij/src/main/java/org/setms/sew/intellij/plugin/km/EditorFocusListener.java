@@ -0,0 +1,27 @@
+package org.setms.sew.intellij.plugin.km;
+
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.setms.km.domain.model.orchestration.ProcessOrchestrator;
+import org.setms.km.domain.model.workspace.Resource;
+import org.setms.sew.intellij.plugin.workspace.IntellijWorkspace;
+
+/** Gives priority to validating the artifact the user is looking at. */
+@RequiredArgsConstructor
+final class EditorFocusListener implements FileEditorManagerListener {
+
+  private final ProcessOrchestrator processOrchestrator;
+  private final IntellijWorkspace workspace;
+
+  @Override
+  public void selectionChanged(@NotNull FileEditorManagerEvent event) {
+    processOrchestrator.focus(
+        Optional.ofNullable(event.getNewFile())
+            .map(workspace::find)
+            .map(Resource::path)
+            .orElse(null));
+  }
+}
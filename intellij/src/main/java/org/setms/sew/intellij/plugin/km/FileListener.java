@@ -1,7 +1,5 @@
 package org.setms.sew.intellij.plugin.km;
 
-import static com.intellij.openapi.command.WriteCommandAction.runWriteCommandAction;
-
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -10,9 +8,11 @@ import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
 import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
 import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
 import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import java.io.File;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import org.jetbrains.annotations.NotNull;
 import org.setms.sew.intellij.plugin.workspace.IntellijWorkspace;
 
@@ -23,6 +23,9 @@ final class FileListener implements BulkFileListener {
   private final Project project;
   private final IntellijWorkspace workspace;
   private final String rootPath;
+  // One thread handles all changes, so that changes to a file are handled in the order they occur
+  private final ExecutorService handler =
+      AppExecutorUtil.createBoundedApplicationPoolExecutor("KM file changes", 1);
 
   FileListener(Project project, IntellijWorkspace workspace) {
     this.project = project;
@@ -65,10 +68,15 @@ final class FileListener implements BulkFileListener {
 
   private void onFileDeleted(@NotNull VirtualFile file) {
     Optional.ofNullable(workspace.find(file))
-        .ifPresent(resource -> runWriteCommandAction(project, () -> workspace.deleted(resource)));
+        .ifPresent(resource -> inBackground(() -> workspace.deleted(resource)));
   }
 
   private void onFileChanged(@NotNull VirtualFile file) {
-    runWriteCommandAction(project, () -> workspace.changed(file));
+    inBackground(() -> workspace.changed(file));
+  }
+
+  private void inBackground(Runnable handling) {
+    // Tools validate in parallel and take the write action only to write, so keep the UI free
+    handler.execute(handling);
   }
 }
@@ -1,36 +1,41 @@
 package org.setms.sew.intellij.plugin.km;
 
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectUtil;
-import org.setms.km.domain.model.orchestration.OutOfDateArtifact;
+import org.setms.km.domain.model.orchestration.OrchestratorSettings;
 import org.setms.km.domain.model.orchestration.ProcessOrchestrator;
 import org.setms.sew.intellij.plugin.workspace.IntellijWorkspace;
 
 public class IntellijProcessOrchestrator extends ProcessOrchestrator {
 
-  private final Project project;
+  /** System property with the maximum number of tools that validate at the same time. */
+  public static final String PARALLELISM_PROPERTY = "sew.km.parallelism";
 
   public IntellijProcessOrchestrator(Project project) {
-    super(new IntellijWorkspace(ProjectUtil.guessProjectDir(project)));
-    this.project = project;
+    super(new IntellijWorkspace(ProjectUtil.guessProjectDir(project)), settings());
   }
 
-  protected void validateArtifactsInBackground() {
-    ApplicationManager.getApplication()
-        .executeOnPooledThread(
-            () ->
-                outOfDateArtifacts().stream()
-                    .filter(artifact -> artifact.path().startsWith("/"))
-                    .forEach(this::update));
+  private static OrchestratorSettings settings() {
+    var result = OrchestratorSettings.defaults();
+    return result.withParallelism(Integer.getInteger(PARALLELISM_PROPERTY, result.parallelism()));
   }
 
-  private void update(OutOfDateArtifact artifact) {
+  @Override
+  protected boolean mayWaitForOtherThreads() {
+    // Writing virtual files takes the write action, which threads holding a read action block
+    return !ApplicationManager.getApplication().isReadAccessAllowed();
+  }
+
+  @Override
+  protected void validateArtifactsInBackground() {
     ApplicationManager.getApplication()
-        .invokeLater(
+        .executeOnPooledThread(
             () ->
-                WriteCommandAction.runWriteCommandAction(
-                    project, () -> updateOutOfDateArtifact(artifact)));
+                catchUp(
+                    outOfDateArtifacts().stream()
+                        .filter(artifact -> artifact.path().startsWith("/"))
+                        .toList(),
+                    this::updateOutOfDateArtifact));
   }
 }
@@ -3,6 +3,7 @@ package org.setms.sew.intellij.plugin.km;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import java.util.concurrent.CompletableFuture;
@@ -35,9 +36,13 @@ public final class ProcessOrchestratorService implements Disposable {
         .runWriteAction(
             () -> {
               processOrchestrator = new IntellijProcessOrchestrator(project);
+              processOrchestrator.registerCatchUpListener(new CatchUpIndicator(project));
               var connection = project.getMessageBus().connect(this);
               connection.subscribe(
                   VirtualFileManager.VFS_CHANGES, new FileListener(project, getWorkspace()));
+              connection.subscribe(
+                  FileEditorManagerListener.FILE_EDITOR_MANAGER,
+                  new EditorFocusListener(processOrchestrator, getWorkspace()));
             });
     ready.complete(null);
   }
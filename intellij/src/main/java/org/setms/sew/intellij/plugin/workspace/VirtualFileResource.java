@@ -1,8 +1,13 @@
 package org.setms.sew.intellij.plugin.workspace;
 
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.util.ThrowableRunnable;
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -58,7 +63,7 @@ class VirtualFileResource implements Resource<VirtualFileResource> {
           .map(child -> new VirtualFileResource(null, child, rootPath))
           .toList();
     }
-    return Stream.ofNullable(virtualFile.getChildren())
+    return Stream.ofNullable(inReadAction(virtualFile::getChildren))
         .flatMap(Arrays::stream)
         .map(child -> new VirtualFileResource(child, null, rootPath))
         .toList();
@@ -80,7 +85,7 @@ class VirtualFileResource implements Resource<VirtualFileResource> {
     }
     VirtualFile result = null;
     try {
-      result = virtualFile.findFileByRelativePath(path);
+      result = inReadAction(() -> virtualFile.findFileByRelativePath(path));
     } catch (Exception ignored) {
       // Nothing to do
     }
@@ -115,7 +120,15 @@ class VirtualFileResource implements Resource<VirtualFileResource> {
     if (virtualFile.isDirectory()) {
       throw new IOException("Can't read from directory " + virtualFile.toNioPath());
     }
-    return virtualFile.getInputStream();
+    return inReadAction(virtualFile::getInputStream);
+  }
+
+  @Override
+  public ByteBuffer readAsBuffer() throws IOException {
+    if (virtualFile == null || virtualFile.isDirectory()) {
+      return Resource.super.readAsBuffer();
+    }
+    return ByteBuffer.wrap(inReadAction(virtualFile::contentsToByteArray)).asReadOnlyBuffer();
   }
 
   @Override
@@ -125,7 +138,15 @@ class VirtualFileResource implements Resource<VirtualFileResource> {
       file.getParentFile().mkdirs();
       return new FileOutputStream(file);
     }
-    return virtualFile.getOutputStream(null);
+    return new ByteArrayOutputStream() {
+      @Override
+      public void close() throws IOException {
+        var content = toByteArray();
+        if (!hasContent(content)) {
+          inWriteAction(() -> virtualFile.setBinaryContent(content));
+        }
+      }
+    };
   }
 
   @Override
@@ -133,10 +154,21 @@ class VirtualFileResource implements Resource<VirtualFileResource> {
     if (virtualFile == null) {
       Files.delete(file);
     } else {
-      virtualFile.delete(null);
+      inWriteAction(() -> virtualFile.delete(null));
     }
   }
 
+  private static <T, E extends Exception> T inReadAction(ThrowableComputable<T, E> read)
+      throws E {
+    // Changes are handled in the background, where reading virtual files needs the read action
+    return ReadAction.compute(read);
+  }
+
+  private static void inWriteAction(ThrowableRunnable<IOException> write) throws IOException {
+    // Only virtual file changes need the write action, so callers can do their work elsewhere
+    WriteAction.runAndWait(write);
+  }
+
   @Override
   public LocalDateTime createdAt() {
     return lastModifiedAt();
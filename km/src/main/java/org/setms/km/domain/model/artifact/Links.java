@@ -0,0 +1,78 @@
+package org.setms.km.domain.model.artifact;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = PRIVATE)
+public class Links {
+
+  private static final Collection<String> IGNORABLE_GETTERS =
+      List.of("getClass", "getFullyQualifiedName", "getPackage", "getName");
+  private static final Map<Class<?>, List<Method>> GETTERS = new ConcurrentHashMap<>();
+
+  /**
+   * Find all links in an artifact, including those in nested artifacts and link attributes.
+   *
+   * @param artifact the artifact to find links in
+   * @return the links, without attributes
+   */
+  public static Set<Link> in(Artifact artifact) {
+    var result = new LinkedHashSet<Link>();
+    collect(artifact, result, Collections.newSetFromMap(new IdentityHashMap<>()));
+    return result;
+  }
+
+  private static void collect(Object value, Set<Link> links, Set<Object> visited) {
+    switch (value) {
+      case null -> {}
+      case Link link -> {
+        links.add(new Link(link.getType(), link.getId()));
+        Optional.ofNullable(link.getAttributes()).map(Map::values).stream()
+            .flatMap(Collection::stream)
+            .flatMap(Collection::stream)
+            .forEach(attribute -> collect(attribute, links, visited));
+      }
+      case Collection<?> collection -> collection.forEach(item -> collect(item, links, visited));
+      case Artifact artifact -> {
+        if (visited.add(artifact)) {
+          gettersOf(artifact.getClass())
+              .forEach(getter -> collect(artifact, getter, links, visited));
+        }
+      }
+      default -> {}
+    }
+  }
+
+  private static List<Method> gettersOf(Class<?> type) {
+    return GETTERS.computeIfAbsent(
+        type,
+        ignored ->
+            Arrays.stream(type.getMethods())
+                .filter(m -> m.getParameterCount() == 0)
+                .filter(m -> !Modifier.isStatic(m.getModifiers()))
+                .filter(m -> m.getName().startsWith("get") || m.getName().startsWith("is"))
+                .filter(m -> !IGNORABLE_GETTERS.contains(m.getName()))
+                .filter(m -> isPotentialLinkHolder(m.getReturnType()))
+                .toList());
+  }
+
+  private static boolean isPotentialLinkHolder(Class<?> type) {
+    return Link.class.equals(type)
+        || Collection.class.isAssignableFrom(type)
+        || Artifact.class.isAssignableFrom(type);
+  }
+
+  private static void collect(
+      Artifact artifact, Method getter, Set<Link> links, Set<Object> visited) {
+    try {
+      collect(getter.invoke(artifact), links, visited);
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+      // Not a property we can inspect
+    }
+  }
+}
@@ -9,6 +9,7 @@ import javax.imageio.ImageIO;
 import lombok.RequiredArgsConstructor;
 import org.setms.km.domain.model.artifact.Artifact;
 import org.setms.km.domain.model.tool.ArtifactTool;
+import org.setms.km.domain.model.tool.Cancellation;
 import org.setms.km.domain.model.validation.Diagnostic;
 import org.setms.km.domain.model.workspace.Resource;
 
@@ -71,6 +72,8 @@ public abstract class BaseDiagramTool<A extends Artifact> extends ArtifactTool<A
 
   protected Optional<Resource<?>> build(
       Diagram diagram, String name, Resource<?> parent, Collection<Diagnostic> diagnostics) {
+    // Rendering is expensive, so don't do it for an artifact that changed again in the meantime
+    Cancellation.checkpoint();
     try {
       var image = renderer.render(diagram);
       if (image == null) {
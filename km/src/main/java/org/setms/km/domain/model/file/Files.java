@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
@@ -87,4 +88,39 @@ public class Files {
       return null;
     }
   }
+
+  /**
+   * Read a buffer as a stream, for code that only knows how to read streams. The buffer itself
+   * isn't changed.
+   *
+   * @param buffer the buffer to read
+   * @return a stream over the remaining content of the buffer
+   */
+  public static InputStream inputStreamOf(ByteBuffer buffer) {
+    var source = buffer.duplicate();
+    return new InputStream() {
+      @Override
+      public int read() {
+        return source.hasRemaining() ? source.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+          return 0;
+        }
+        if (!source.hasRemaining()) {
+          return -1;
+        }
+        var result = Math.min(length, source.remaining());
+        source.get(bytes, offset, result);
+        return result;
+      }
+
+      @Override
+      public int available() {
+        return source.remaining();
+      }
+    };
+  }
 }
@@ -1,6 +1,7 @@
 package org.setms.km.domain.model.format;
 
 import static java.util.Comparator.comparingInt;
+import static org.setms.km.domain.model.file.Files.inputStreamOf;
 import static org.setms.km.domain.model.format.Strings.initUpper;
 import static org.setms.km.domain.model.validation.Level.ERROR;
 import static org.setms.km.domain.model.validation.Validation.validate;
@@ -10,6 +11,7 @@ import io.github.classgraph.ClassInfo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -39,6 +41,23 @@ public interface Parser {
 
   RootObject parse(InputStream input) throws IOException;
 
+  default <T extends Artifact> T parse(
+      String name, ByteBuffer input, Class<T> type, boolean validate) throws IOException {
+    return convert(parse(input), type, validate);
+  }
+
+  /**
+   * Parse content that's already in memory. Parsers that can work on the buffer directly, rather
+   * than on a stream over it, should override this.
+   *
+   * @param input the content to parse
+   * @return the parsed object
+   * @throws IOException when the content can't be read
+   */
+  default RootObject parse(ByteBuffer input) throws IOException {
+    return parse(inputStreamOf(input));
+  }
+
   default <T extends Artifact> T convert(RootObject object, Class<T> type, boolean validate) {
     if (object == null) {
       return null;
@@ -255,8 +274,8 @@ public interface Parser {
 
   default <T extends Artifact> T parse(
       Resource<?> resource, Class<T> type, boolean validate, Collection<Diagnostic> diagnostics) {
-    try (var inputStream = resource.readFrom()) {
-      return parse(resource.name(), inputStream, type, validate);
+    try {
+      return parse(resource.name(), resource.readAsBuffer(), type, validate);
     } catch (ValidationException e) {
       diagnostics.addAll(e.getDiagnostics());
     } catch (InvalidPropertyException e) {
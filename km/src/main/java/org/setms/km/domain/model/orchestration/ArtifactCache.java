@@ -0,0 +1,121 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.setms.km.domain.model.artifact.Artifact;
+import org.setms.km.domain.model.workspace.Resource;
+
+/**
+ * Parsed artifacts, keyed by path and type, shared by all tools. An entry is only used when the
+ * resource wasn't modified since it was parsed. The least recently used paths are evicted once the
+ * cache holds more than its capacity.
+ */
+class ArtifactCache {
+
+  static final int DEFAULT_CAPACITY = 10_000;
+
+  private final Map<String, Entry> entriesByPath;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  ArtifactCache(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative");
+    }
+    this.entriesByPath =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > capacity) {
+              evictions.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Get the artifact stored in a resource, parsing it only if it's not cached or changed since it
+   * was cached.
+   *
+   * @param resource the resource that stores the artifact
+   * @param type the type of artifact
+   * @param parser how to parse the resource when needed
+   * @return the artifact, or {@code null} if the resource couldn't be parsed
+   */
+  @SuppressWarnings("unchecked")
+  <T extends Artifact> T get(Resource<?> resource, Class<T> type, Function<Resource<?>, T> parser) {
+    var path = resource.path();
+    var fingerprint = resource.lastModifiedAt();
+    synchronized (entriesByPath) {
+      var entry = entriesByPath.get(path);
+      if (entry != null && fingerprint != null && fingerprint.equals(entry.fingerprint())) {
+        var cached = entry.artifactsByType().get(type);
+        if (cached != null) {
+          hits.incrementAndGet();
+          return (T) cached.orElse(null);
+        }
+      }
+    }
+    misses.incrementAndGet();
+    var result = parser.apply(resource);
+    if (fingerprint != null) {
+      store(path, fingerprint, type, result);
+    }
+    return result;
+  }
+
+  /**
+   * Add an artifact that was parsed elsewhere. The artifact is only used while the resource isn't
+   * modified after the time it had when it was parsed, even when it changed during parsing.
+   *
+   * @param path the path of the resource that stores the artifact
+   * @param fingerprint when the resource was last modified, as seen right before parsing it
+   * @param artifact the parsed artifact
+   */
+  void put(String path, LocalDateTime fingerprint, Artifact artifact) {
+    if (artifact != null && fingerprint != null) {
+      store(path, fingerprint, artifact.getClass(), artifact);
+    }
+  }
+
+  private void store(String path, LocalDateTime fingerprint, Class<?> type, Artifact artifact) {
+    synchronized (entriesByPath) {
+      var entry = entriesByPath.get(path);
+      if (entry == null || !fingerprint.equals(entry.fingerprint())) {
+        entry = new Entry(fingerprint);
+        entriesByPath.put(path, entry);
+      }
+      entry.artifactsByType().put(type, Optional.ofNullable(artifact));
+    }
+  }
+
+  void invalidate(String path) {
+    synchronized (entriesByPath) {
+      entriesByPath.remove(path);
+    }
+  }
+
+  CacheStatistics statistics() {
+    int size;
+    synchronized (entriesByPath) {
+      size = entriesByPath.size();
+    }
+    return new CacheStatistics(hits.get(), misses.get(), evictions.get(), size);
+  }
+
+  private record Entry(
+      LocalDateTime fingerprint, Map<Class<?>, Optional<Artifact>> artifactsByType) {
+
+    Entry(LocalDateTime fingerprint) {
+      this(fingerprint, new HashMap<>());
+    }
+  }
+}
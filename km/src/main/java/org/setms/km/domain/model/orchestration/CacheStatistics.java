@@ -0,0 +1,11 @@
+package org.setms.km.domain.model.orchestration;
+
+/**
+ * Statistics about a cache.
+ *
+ * @param hits the number of lookups that were served from the cache
+ * @param misses the number of lookups that weren't
+ * @param evictions the number of entries that were removed to stay within capacity
+ * @param size the current number of entries
+ */
+public record CacheStatistics(long hits, long misses, long evictions, int size) {}
@@ -0,0 +1,7 @@
+package org.setms.km.domain.model.orchestration;
+
+@FunctionalInterface
+public interface CatchUpListener {
+
+  void progressed(CatchUpProgress progress);
+}
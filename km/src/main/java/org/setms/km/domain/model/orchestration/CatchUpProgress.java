@@ -0,0 +1,31 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Progress of validating the artifacts that changed while the workspace wasn't watched.
+ *
+ * @param completed the number of artifacts that were validated
+ * @param total the number of artifacts to validate
+ * @param elapsed the time since validation started
+ */
+public record CatchUpProgress(int completed, int total, Duration elapsed) {
+
+  public boolean isDone() {
+    return completed >= total;
+  }
+
+  /**
+   * Estimate how long it takes to validate the remaining artifacts, based on how long it took to
+   * validate the completed ones.
+   *
+   * @return the estimated remaining time, or nothing if no artifacts were validated yet
+   */
+  public Optional<Duration> estimatedRemaining() {
+    if (completed == 0) {
+      return isDone() ? Optional.of(Duration.ZERO) : Optional.empty();
+    }
+    return Optional.of(elapsed.multipliedBy(Math.max(0, total - completed)).dividedBy(completed));
+  }
+}
@@ -0,0 +1,105 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Out-of-date artifacts waiting to be validated. Artifacts are handed out one level of dependency
+ * depth at a time, so artifacts go before their dependents. Urgent artifacts, like the one the user
+ * is looking at, jump the queue. Other artifacts yield while urgent work is going on elsewhere.
+ */
+class CatchUpQueue {
+
+  private final List<OutOfDateArtifact> waiting = new ArrayList<>();
+  private final TreeMap<Integer, Integer> inProgressByDepth = new TreeMap<>();
+  private final ToIntFunction<String> depthOf;
+  private final Predicate<String> isUrgent;
+  private final BooleanSupplier shouldYield;
+
+  /**
+   * Create a catch-up queue.
+   *
+   * @param depthOf the dependency depth of the artifact at a path
+   * @param isUrgent whether the artifact at a path is urgent
+   * @param shouldYield whether other urgent work is going on
+   */
+  CatchUpQueue(
+      ToIntFunction<String> depthOf, Predicate<String> isUrgent, BooleanSupplier shouldYield) {
+    this.depthOf = depthOf;
+    this.isUrgent = isUrgent;
+    this.shouldYield = shouldYield;
+  }
+
+  synchronized void addAll(Collection<OutOfDateArtifact> artifacts) {
+    waiting.addAll(artifacts);
+    waiting.sort(
+        (first, second) -> {
+          var result = Integer.compare(depthOf(first), depthOf(second));
+          return result == 0 ? first.path().compareTo(second.path()) : result;
+        });
+    notifyAll();
+  }
+
+  private int depthOf(OutOfDateArtifact artifact) {
+    return depthOf.applyAsInt(artifact.path());
+  }
+
+  /**
+   * Update artifacts until none are waiting.
+   *
+   * @param update how to update an artifact
+   */
+  void drain(Consumer<OutOfDateArtifact> update) {
+    for (var artifact = take(); artifact != null; artifact = take()) {
+      try {
+        update.accept(artifact);
+      } finally {
+        done(artifact);
+      }
+    }
+  }
+
+  private synchronized OutOfDateArtifact take() {
+    try {
+      while (!waiting.isEmpty()) {
+        var urgent =
+            waiting.stream().filter(artifact -> isUrgent.test(artifact.path())).findFirst();
+        if (urgent.isPresent()) {
+          return start(urgent.get());
+        }
+        var next = waiting.getFirst();
+        if (!shouldYield.getAsBoolean()
+            && (inProgressByDepth.isEmpty() || depthOf(next) <= inProgressByDepth.firstKey())) {
+          return start(next);
+        }
+        wait();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
+  private OutOfDateArtifact start(OutOfDateArtifact artifact) {
+    waiting.remove(artifact);
+    inProgressByDepth.merge(depthOf(artifact), 1, Integer::sum);
+    return artifact;
+  }
+
+  private synchronized void done(OutOfDateArtifact artifact) {
+    inProgressByDepth.computeIfPresent(
+        depthOf(artifact), (ignored, count) -> count == 1 ? null : count - 1);
+    notifyAll();
+  }
+
+  /** Look again at which artifact to hand out next, for instance because urgency changed. */
+  synchronized void wake() {
+    notifyAll();
+  }
+}
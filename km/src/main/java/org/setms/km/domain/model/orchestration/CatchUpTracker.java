@@ -0,0 +1,50 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/** Tracks the progress of validating out-of-date artifacts and tells listeners about it. */
+@Slf4j
+class CatchUpTracker {
+
+  private final Collection<CatchUpListener> listeners = new CopyOnWriteArrayList<>();
+  private final AtomicInteger completed = new AtomicInteger();
+  private volatile int total;
+  private volatile long startedAt = System.nanoTime();
+
+  void register(CatchUpListener listener) {
+    listeners.add(listener);
+  }
+
+  void start(int total) {
+    this.total = total;
+    this.startedAt = System.nanoTime();
+    completed.set(0);
+    notifyListeners();
+  }
+
+  void completed() {
+    completed.incrementAndGet();
+    notifyListeners();
+  }
+
+  CatchUpProgress progress() {
+    return new CatchUpProgress(
+        completed.get(), total, Duration.ofNanos(System.nanoTime() - startedAt));
+  }
+
+  private void notifyListeners() {
+    var progress = progress();
+    listeners.forEach(
+        listener -> {
+          try {
+            listener.progressed(progress);
+          } catch (RuntimeException e) {
+            log.warn("Failed to report progress", e);
+          }
+        });
+  }
+}
@@ -0,0 +1,206 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.json.JSONObject;
+
+/**
+ * Records which work a change causes, as a tree of spans. Each span knows the span that caused it
+ * and why. Recording is off until started, and then costs a few allocations per span. The arguments
+ * that describe spans are only built while recording. The trace is exported in the Chrome
+ * trace-event format, with flow events for the causes, so that standard trace viewers like Perfetto
+ * can show it.
+ */
+class CausalTrace {
+
+  static final int MAX_SPANS = 100_000;
+  private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+  private static final String[] NO_ARGS = {};
+
+  private final AtomicLong ids = new AtomicLong();
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger dropped = new AtomicInteger();
+  private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+  private volatile boolean enabled;
+  private volatile long origin = System.nanoTime();
+
+  void start() {
+    spans.clear();
+    size.set(0);
+    dropped.set(0);
+    origin = System.nanoTime();
+    enabled = true;
+  }
+
+  void stop() {
+    enabled = false;
+  }
+
+  void run(String name, String reason, Runnable work) {
+    run(name, reason, work, () -> NO_ARGS);
+  }
+
+  void run(String name, String reason, Runnable work, Supplier<String[]> args) {
+    call(
+        name,
+        reason,
+        () -> {
+          work.run();
+          return null;
+        },
+        args);
+  }
+
+  /**
+   * Do work as a span in the trace, if tracing.
+   *
+   * @param name what the work is, like {@code validate}
+   * @param reason why the work is done, which labels the edge from the span that caused it
+   * @param work the work to do
+   * @param args alternating names and values that describe the work, like the tool and path
+   * @return the result of the work
+   */
+  <T> T call(String name, String reason, Supplier<T> work, Supplier<String[]> args) {
+    if (!enabled) {
+      return work.get();
+    }
+    var parent = CURRENT.get();
+    var span =
+        new Span(
+            ids.incrementAndGet(),
+            parent == null ? 0 : parent.id(),
+            parent == null ? 0 : parent.thread(),
+            name,
+            reason,
+            args.get(),
+            Thread.currentThread().threadId(),
+            System.nanoTime());
+    CURRENT.set(span);
+    try {
+      return work.get();
+    } finally {
+      CURRENT.set(parent);
+      record(span.endedAt(System.nanoTime()));
+    }
+  }
+
+  private void record(Span span) {
+    if (size.incrementAndGet() > MAX_SPANS) {
+      dropped.incrementAndGet();
+      return;
+    }
+    spans.add(span);
+  }
+
+  /**
+   * Make work that runs on another thread part of the span that is current now.
+   *
+   * @param work the work to do
+   * @return the work, which sets the current span while running
+   */
+  Runnable inheriting(Runnable work) {
+    var parent = CURRENT.get();
+    if (!enabled || parent == null) {
+      return work;
+    }
+    return () -> {
+      var previous = CURRENT.get();
+      CURRENT.set(parent);
+      try {
+        work.run();
+      } finally {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  String toJson() {
+    var events = new ArrayList<Map<String, Object>>();
+    spans.forEach(span -> addEvents(span, events));
+    var metadata = new LinkedHashMap<String, Object>();
+    metadata.put("droppedSpans", dropped.get());
+    var result = new LinkedHashMap<String, Object>();
+    result.put("traceEvents", events);
+    result.put("displayTimeUnit", "ms");
+    result.put("otherData", metadata);
+    return new JSONObject(result).toString();
+  }
+
+  private void addEvents(Span span, List<Map<String, Object>> events) {
+    var args = new LinkedHashMap<String, Object>();
+    for (var i = 0; i + 1 < span.args().length; i += 2) {
+      args.put(span.args()[i], span.args()[i + 1]);
+    }
+    args.put("reason", span.reason());
+    args.put("id", span.id());
+    if (span.parentId() > 0) {
+      args.put("causedBy", span.parentId());
+    }
+    var complete = event(span.name(), "orchestrator", "X", span.thread(), span.start());
+    complete.put("dur", micros(span.end() - span.start()));
+    complete.put("args", args);
+    events.add(complete);
+    if (span.parentId() > 0) {
+      // Draw an arrow from the cause to the effect
+      var flowStart = event(span.reason(), "cause", "s", span.parentThread(), span.start());
+      flowStart.put("id", span.id());
+      events.add(flowStart);
+      var flowEnd = event(span.reason(), "cause", "f", span.thread(), span.start());
+      flowEnd.put("id", span.id());
+      flowEnd.put("bp", "e");
+      events.add(flowEnd);
+    }
+  }
+
+  private Map<String, Object> event(
+      String name, String category, String phase, long thread, long timestamp) {
+    var result = new HashMap<String, Object>();
+    result.put("name", name);
+    result.put("cat", category);
+    result.put("ph", phase);
+    result.put("pid", 1);
+    result.put("tid", thread);
+    result.put("ts", micros(timestamp - origin));
+    return result;
+  }
+
+  private double micros(long nanos) {
+    return nanos / 1_000.0;
+  }
+
+  private record Span(
+      long id,
+      long parentId,
+      long parentThread,
+      String name,
+      String reason,
+      String[] args,
+      long thread,
+      long start,
+      long end) {
+
+    Span(
+        long id,
+        long parentId,
+        long parentThread,
+        String name,
+        String reason,
+        String[] args,
+        long thread,
+        long start) {
+      this(id, parentId, parentThread, name, reason, args, thread, start, start);
+    }
+
+    Span endedAt(long time) {
+      return new Span(id, parentId, parentThread, name, reason, args, thread, start, time);
+    }
+  }
+}
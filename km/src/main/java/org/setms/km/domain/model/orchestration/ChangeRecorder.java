@@ -0,0 +1,100 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.setms.km.domain.model.orchestration.RecordedChange.Operation.CHANGED;
+import static org.setms.km.domain.model.orchestration.RecordedChange.Operation.DELETED;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.setms.km.domain.model.workspace.ChangeBatch;
+import org.setms.km.domain.model.workspace.Workspace;
+
+/**
+ * Records the changes to a workspace in a file, one JSON object per line, so that they can be
+ * {@linkplain ReplayHarness replayed} later. Changes to internal resources aren't recorded.
+ */
+@Slf4j
+public class ChangeRecorder implements Closeable {
+
+  private final Workspace<?> workspace;
+  private final PrintWriter writer;
+  private final long startedAt = System.nanoTime();
+  private boolean closed;
+
+  /**
+   * Start recording the changes to a workspace.
+   *
+   * @param workspace the workspace to record the changes of
+   * @param file the file to record the changes in, which is overwritten
+   * @throws IOException when the file can't be written
+   */
+  public ChangeRecorder(Workspace<?> workspace, File file) throws IOException {
+    this.workspace = workspace;
+    var directory = file.getAbsoluteFile().getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Failed to create " + directory);
+    }
+    this.writer = new PrintWriter(new FileOutputStream(file), false, StandardCharsets.UTF_8);
+    workspace.registerChangeBatchHandler(this::record);
+  }
+
+  private synchronized void record(ChangeBatch batch) {
+    if (closed) {
+      return;
+    }
+    var at = System.nanoTime() - startedAt;
+    batch.changed().keySet().stream()
+        .filter(this::isRecorded)
+        .forEach(path -> record(new RecordedChange(at, CHANGED, path, read(path))));
+    batch.deleted().stream()
+        .filter(this::isRecorded)
+        .forEach(path -> record(new RecordedChange(at, DELETED, path, null)));
+    writer.flush();
+  }
+
+  private boolean isRecorded(String path) {
+    return !path.startsWith("/.km/");
+  }
+
+  private byte[] read(String path) {
+    try (var input = workspace.root().select(path).readFrom()) {
+      return input.readAllBytes();
+    } catch (IOException e) {
+      log.warn("Failed to record content of {}", path, e);
+      return new byte[0];
+    }
+  }
+
+  private void record(RecordedChange change) {
+    writer.println(change.toJson());
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    writer.close();
+  }
+
+  /**
+   * Load recorded changes.
+   *
+   * @param file the file the changes were recorded in
+   * @return the recorded changes, in the order in which they happened
+   * @throws IOException when the file can't be read
+   */
+  public static List<RecordedChange> load(File file) throws IOException {
+    try (var reader =
+        new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      return reader.lines().filter(line -> !line.isBlank()).map(RecordedChange::fromJson).toList();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package org.setms.km.domain.model.orchestration;
+
+import static java.util.Collections.emptySet;
+
+import java.util.*;
+import java.util.function.Function;
+import org.setms.km.domain.model.tool.ArtifactTool;
+import org.setms.km.domain.model.tool.Input;
+import org.setms.km.domain.model.tool.StandaloneTool;
+import org.setms.km.domain.model.tool.Tool;
+import org.setms.km.domain.model.workspace.GlobSet;
+
+/**
+ * Dependencies between {@linkplain Input inputs} and the {@linkplain Tool tools} that consume them.
+ * An input depends on another input when a tool that validates the former needs the latter for
+ * validation.
+ */
+class DependencyGraph {
+
+  private final Map<Input<?>, Set<ArtifactTool<?>>> validatorsByInput = new HashMap<>();
+  private final Map<Input<?>, Set<Tool>> dependentsByInput = new HashMap<>();
+  private final Map<Input<?>, Set<Tool>> reportersByInput = new HashMap<>();
+  private final Map<Input<?>, Set<Input<?>>> downstreamByInput = new HashMap<>();
+  private final Map<Input<?>, Integer> depthByInput = new HashMap<>();
+  private final GlobSet<Input<?>> inputsByGlob;
+
+  DependencyGraph(Collection<? extends Tool> tools) {
+    tools.forEach(this::add);
+    inputsByGlob = new GlobSet<>(inputs(), Input::glob);
+    inputs().forEach(input -> downstreamByInput.put(input, downstreamOf(input)));
+    inputs().forEach(input -> depthOf(input, new HashSet<>()));
+  }
+
+  private void add(Tool tool) {
+    if (tool instanceof ArtifactTool<?> artifactTool) {
+      artifactTool
+          .validationTargetInputs()
+          .forEach(input -> link(validatorsByInput, input, artifactTool));
+      artifactTool.reportingTarget().ifPresent(input -> link(reportersByInput, input, tool));
+    }
+    tool.validationContext().forEach(input -> link(dependentsByInput, input, tool));
+    tool.reportingContext().forEach(input -> link(reportersByInput, input, tool));
+  }
+
+  private <T> void link(Map<Input<?>, Set<T>> toolsByInput, Input<?> input, T tool) {
+    toolsByInput.computeIfAbsent(input, ignored -> new LinkedHashSet<>()).add(tool);
+  }
+
+  private Set<Input<?>> inputs() {
+    var result = new LinkedHashSet<Input<?>>();
+    result.addAll(validatorsByInput.keySet());
+    result.addAll(dependentsByInput.keySet());
+    result.addAll(reportersByInput.keySet());
+    return result;
+  }
+
+  private Set<Input<?>> directDownstreamOf(Input<?> input) {
+    var result = new LinkedHashSet<Input<?>>();
+    dependentsByInput.getOrDefault(input, emptySet()).stream()
+        .filter(ArtifactTool.class::isInstance)
+        .map(ArtifactTool.class::cast)
+        .forEach(tool -> tool.validationTargets().forEach(result::add));
+    result.remove(input);
+    return result;
+  }
+
+  private Set<Input<?>> downstreamOf(Input<?> input) {
+    var result = new LinkedHashSet<Input<?>>();
+    var todo = new ArrayDeque<>(directDownstreamOf(input));
+    while (!todo.isEmpty()) {
+      var current = todo.removeFirst();
+      if (!current.equals(input) && result.add(current)) {
+        todo.addAll(directDownstreamOf(current));
+      }
+    }
+    return result;
+  }
+
+  private int depthOf(Input<?> input, Set<Input<?>> visiting) {
+    var result = depthByInput.get(input);
+    if (result != null) {
+      return result;
+    }
+    if (!visiting.add(input)) {
+      // Cyclic dependency
+      return 0;
+    }
+    result =
+        dependentsByInput.entrySet().stream()
+            .filter(entry -> directDownstreamOf(entry.getKey()).contains(input))
+            .mapToInt(entry -> 1 + depthOf(entry.getKey(), visiting))
+            .max()
+            .orElse(0);
+    visiting.remove(input);
+    depthByInput.put(input, result);
+    return result;
+  }
+
+  /**
+   * All inputs that depend on a given input, directly or indirectly.
+   *
+   * @param input the input to find dependents for
+   * @return the dependent inputs
+   */
+  Set<Input<?>> dependentInputsOf(Input<?> input) {
+    return Collections.unmodifiableSet(downstreamByInput.getOrDefault(input, emptySet()));
+  }
+
+  /**
+   * The length of the longest chain of inputs that a given input depends on. Inputs that don't
+   * depend on anything have depth zero.
+   *
+   * @param input the input to find the depth of
+   * @return the depth of the input
+   */
+  int depthOf(Input<?> input) {
+    return depthByInput.getOrDefault(input, 0);
+  }
+
+  /**
+   * The depth of the artifact at a given path, which is the maximum depth of the inputs it
+   * matches.
+   *
+   * @param path the path to the artifact
+   * @return the depth of the artifact
+   */
+  int depthOf(String path) {
+    return inputsMatching(path).stream().mapToInt(this::depthOf).max().orElse(0);
+  }
+
+  Collection<Input<?>> inputsMatching(String path) {
+    return inputsByGlob.matching(path);
+  }
+
+  Set<ArtifactTool<?>> validatorsOf(String path) {
+    return toolsMatching(validatorsByInput, path);
+  }
+
+  Set<Tool> dependentsOf(String path) {
+    return toolsMatching(dependentsByInput, path);
+  }
+
+  Set<Tool> reportersOf(String path) {
+    return toolsMatching(reportersByInput, path);
+  }
+
+  private <T> Set<T> toolsMatching(Map<Input<?>, Set<T>> toolsByInput, String path) {
+    var result = new LinkedHashSet<T>();
+    inputsMatching(path)
+        .forEach(input -> result.addAll(toolsByInput.getOrDefault(input, emptySet())));
+    return result;
+  }
+
+  /**
+   * The validations to run when the artifact at a given path changes or is deleted.
+   *
+   * @param path the path to the changed artifact
+   * @param targetPaths the paths that an artifact tool validates
+   * @param referrers the paths of the artifacts that link to the changed artifact, if known
+   * @return the validations to run, in dependency order
+   */
+  Set<ValidationTask> validationsAffectedBy(
+      String path,
+      Function<ArtifactTool<?>, Collection<String>> targetPaths,
+      Optional<Set<String>> referrers) {
+    var result = new LinkedHashSet<ValidationTask>();
+    validatorsOf(path).forEach(tool -> result.add(new ValidationTask(tool, path)));
+    var dependents = new ArrayList<ValidationTask>();
+    for (var tool : dependentsOf(path)) {
+      switch (tool) {
+        case ArtifactTool<?> artifactTool ->
+            pathsToRevalidate(artifactTool, path, targetPaths, referrers).stream()
+                .map(target -> new ValidationTask(tool, target))
+                .forEach(dependents::add);
+        case StandaloneTool ignored -> dependents.add(new ValidationTask(tool, path));
+      }
+    }
+    dependents.sort(Comparator.comparingInt(task -> depthOf(task.path())));
+    result.addAll(dependents);
+    return result;
+  }
+
+  private Collection<String> pathsToRevalidate(
+      ArtifactTool<?> tool,
+      String path,
+      Function<ArtifactTool<?>, Collection<String>> targetPaths,
+      Optional<Set<String>> referrers) {
+    if (tool.dependsOnlyOnLinkedArtifacts() && referrers.isPresent()) {
+      var result = new TreeSet<String>();
+      if (tool.validates(path)) {
+        result.add(path);
+      }
+      referrers.get().stream().filter(tool::validates).forEach(result::add);
+      return result;
+    }
+    return tool.validates(path) ? List.of(path) : targetPaths.apply(tool);
+  }
+}
@@ -0,0 +1,96 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.*;
+import org.setms.km.domain.model.validation.Diagnostic;
+import org.setms.km.domain.model.validation.Level;
+
+/**
+ * Immutable view of all diagnostics at the moment they were published, so that readers never see
+ * the results of validations that are still in progress. A new snapshot shares all but the changed
+ * paths with the previous one, so that publishing costs in proportion to what changed. Views across
+ * paths are built on first use.
+ */
+final class DiagnosticsSnapshot {
+
+  static final DiagnosticsSnapshot EMPTY = new DiagnosticsSnapshot(PersistentMap.empty());
+
+  private final PersistentMap<String, Set<Diagnostic>> byPath;
+  private volatile Aggregates aggregates;
+
+  private DiagnosticsSnapshot(PersistentMap<String, Set<Diagnostic>> byPath) {
+    this.byPath = byPath;
+  }
+
+  /**
+   * A snapshot that differs from this one only for some paths.
+   *
+   * @param changedByPath the diagnostics of the changed paths, empty for paths without diagnostics
+   * @return the new snapshot
+   */
+  DiagnosticsSnapshot with(Map<String, ? extends Collection<Diagnostic>> changedByPath) {
+    if (changedByPath.isEmpty()) {
+      return this;
+    }
+    var result = byPath;
+    for (var entry : changedByPath.entrySet()) {
+      var diagnostics = entry.getValue();
+      result =
+          result.with(
+              entry.getKey(),
+              diagnostics.isEmpty()
+                  ? null
+                  : Collections.unmodifiableSet(new LinkedHashSet<>(diagnostics)));
+    }
+    return new DiagnosticsSnapshot(result);
+  }
+
+  Set<Diagnostic> diagnosticsFor(String path) {
+    return Optional.ofNullable(byPath.get(path)).orElse(Set.of());
+  }
+
+  Set<Diagnostic> all() {
+    return aggregates().all();
+  }
+
+  Set<Diagnostic> diagnostics(Level level) {
+    return aggregates().byLevel().getOrDefault(level, Set.of());
+  }
+
+  Set<Diagnostic> withSuggestions() {
+    return aggregates().withSuggestions();
+  }
+
+  private Aggregates aggregates() {
+    var result = aggregates;
+    if (result == null) {
+      // Building the views twice when readers race is harmless, since the snapshot doesn't change
+      result = Aggregates.of(byPath.values().toList());
+      aggregates = result;
+    }
+    return result;
+  }
+
+  private record Aggregates(
+      Set<Diagnostic> all, Map<Level, Set<Diagnostic>> byLevel, Set<Diagnostic> withSuggestions) {
+
+    static Aggregates of(Collection<Set<Diagnostic>> diagnosticsPerPath) {
+      var all = new HashSet<Diagnostic>();
+      var byLevel = new EnumMap<Level, Set<Diagnostic>>(Level.class);
+      var withSuggestions = new HashSet<Diagnostic>();
+      for (var diagnostics : diagnosticsPerPath) {
+        for (var diagnostic : diagnostics) {
+          all.add(diagnostic);
+          byLevel.computeIfAbsent(diagnostic.level(), ignored -> new HashSet<>()).add(diagnostic);
+          if (diagnostic.hasSuggestion()) {
+            withSuggestions.add(diagnostic);
+          }
+        }
+      }
+      byLevel.replaceAll((level, diagnostics) -> Collections.unmodifiableSet(diagnostics));
+      return new Aggregates(
+          Collections.unmodifiableSet(all),
+          Collections.unmodifiableMap(byLevel),
+          Collections.unmodifiableSet(withSuggestions));
+    }
+  }
+}
@@ -0,0 +1,377 @@
+package org.setms.km.domain.model.orchestration;
+
+import static java.util.Collections.emptyList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.setms.km.domain.model.validation.Diagnostic;
+import org.setms.km.domain.model.validation.Level;
+import org.setms.km.domain.model.validation.Location;
+import org.setms.km.domain.model.validation.Suggestion;
+import org.setms.km.domain.model.workspace.Resource;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Diagnostics per path and tool, indexed in memory by path and tool. Changes are appended to a log,
+ * one JSON object per line, when they're {@linkplain #publish() published}, so that storing
+ * diagnostics doesn't wait for the disk. When the log holds many more lines than there are entries,
+ * it's compacted by rewriting it with only the current entries. Readers use the last published
+ * snapshot, which they can read without locking and which doesn't show validations in progress.
+ */
+@Slf4j
+class DiagnosticsStore {
+
+  static final String LOG_PATH = ".km/diagnostics.log";
+  private static final String LEGACY_PATH = ".km/diagnostics";
+  private static final int MIN_LINES_BEFORE_COMPACTION = 1_000;
+
+  private final ObjectMapper mapper = new JsonMapper();
+  private final Resource<?> root;
+  private final Map<Key, Entry> entries = new HashMap<>();
+  private final NavigableMap<String, Set<Key>> keysByPath = new TreeMap<>();
+  private final Map<String, Set<Key>> keysByTool = new HashMap<>();
+  private final Set<String> pathsChangedSincePublished = new HashSet<>();
+  private final List<Map<String, Object>> unwrittenChanges = new ArrayList<>();
+  // Orders writes to the log, which happen without holding the lock on the entries
+  private final Object writing = new Object();
+  private int lines;
+  private boolean compactionDue;
+  private volatile DiagnosticsSnapshot published = DiagnosticsSnapshot.EMPTY;
+
+  DiagnosticsStore(Resource<?> root) {
+    this.root = root;
+    var changeLog = changeLog();
+    if (changeLog.exists()) {
+      load(changeLog);
+    } else {
+      migrateLegacyDiagnostics();
+    }
+    publish();
+  }
+
+  private Resource<?> changeLog() {
+    return root.select(LOG_PATH);
+  }
+
+  private void load(Resource<?> changeLog) {
+    try (var reader =
+        new BufferedReader(new InputStreamReader(changeLog.readFrom(), StandardCharsets.UTF_8))) {
+      reader.lines().forEach(this::replay);
+    } catch (IOException e) {
+      log.error("Failed to load diagnostics from {}", changeLog.path(), e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void replay(String line) {
+    lines++;
+    Map<String, Object> change;
+    try {
+      change = mapper.readValue(line, Map.class);
+    } catch (Exception e) {
+      // A line that was only partially written
+      return;
+    }
+    var path = (String) change.get("path");
+    var tool = (String) change.get("tool");
+    switch ((String) change.get("op")) {
+      case "store" ->
+          index(
+              new Key(path, tool),
+              new Entry(
+                  LocalDateTime.parse((String) change.get("validatedAt")),
+                  deserialize((List<Map<String, Object>>) change.get("diagnostics"))));
+      case "remove" -> unindex(new Key(path, tool));
+      case "removeTool" -> keysOf(keysByTool.get(tool)).forEach(this::unindex);
+      case "removeAll" -> keysAtOrBelow(path).forEach(this::unindex);
+      default -> log.warn("Ignoring unknown change to diagnostics: {}", line);
+    }
+  }
+
+  private void migrateLegacyDiagnostics() {
+    var legacy = root.matching(LEGACY_PATH, "json");
+    if (legacy.isEmpty()) {
+      return;
+    }
+    var prefix = "/%s".formatted(LEGACY_PATH);
+    legacy.forEach(
+        resource -> {
+          var path = resource.path().substring(prefix.length());
+          var separator = path.lastIndexOf('/');
+          var tool = path.substring(separator + 1, path.length() - ".json".length());
+          index(
+              new Key(path.substring(0, separator), tool),
+              new Entry(
+                  Optional.ofNullable(resource.lastModifiedAt())
+                      .orElse(ProcessOrchestrator.LONG_AGO),
+                  deserializeFrom(resource)));
+        });
+    compactionDue = true;
+    publish();
+    try {
+      root.select(LEGACY_PATH).delete();
+    } catch (IOException e) {
+      log.warn("Failed to delete legacy diagnostics", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Diagnostic> deserializeFrom(Resource<?> resource) {
+    try (var input = resource.readFrom()) {
+      var diagnostics = (Map<String, List<Map<String, Object>>>) mapper.readValue(input, Map.class);
+      return deserialize(diagnostics.get("diagnostics"));
+    } catch (Exception e) {
+      return emptyList();
+    }
+  }
+
+  private List<Diagnostic> deserialize(List<Map<String, Object>> diagnostics) {
+    return diagnostics.stream().map(this::deserialize).toList();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Diagnostic deserialize(Map<String, Object> diagnostic) {
+    var level = Level.valueOf((String) diagnostic.get("level"));
+    var message = diagnostic.get("message").toString();
+    var location =
+        Optional.ofNullable(diagnostic.get("location"))
+            .map(String.class::cast)
+            .map(path -> path.split("/"))
+            .map(Location::new)
+            .orElse(null);
+    var suggestions =
+        Optional.ofNullable(diagnostic.get("suggestions")).map(Collection.class::cast).stream()
+            .flatMap(Collection::stream)
+            .map(suggestion -> deserializeSuggestion((Map<String, String>) suggestion))
+            .toList();
+    return new Diagnostic(level, message, location, suggestions);
+  }
+
+  private Suggestion deserializeSuggestion(Map<String, String> suggestion) {
+    return new Suggestion(suggestion.get("code"), suggestion.get("message"));
+  }
+
+  synchronized void store(String path, String tool, Collection<Diagnostic> diagnostics) {
+    var key = new Key(path, tool);
+    var entry = new Entry(LocalDateTime.now(), List.copyOf(diagnostics));
+    index(key, entry);
+    append(storeChange(key, entry));
+  }
+
+  private Map<String, Object> storeChange(Key key, Entry entry) {
+    return Map.of(
+        "op",
+        "store",
+        "path",
+        key.path(),
+        "tool",
+        key.tool(),
+        "validatedAt",
+        entry.validatedAt().toString(),
+        "diagnostics",
+        entry.diagnostics().stream().map(this::serialize).toList());
+  }
+
+  private Map<String, Object> serialize(Diagnostic diagnostic) {
+    var result = new HashMap<String, Object>();
+    result.put("level", diagnostic.level().toString());
+    result.put("message", diagnostic.message());
+    if (diagnostic.location() != null) {
+      result.put("location", diagnostic.location().toString());
+    }
+    if (!diagnostic.suggestions().isEmpty()) {
+      result.put("suggestions", diagnostic.suggestions().stream().map(this::serialize).toList());
+    }
+    return result;
+  }
+
+  private Map<String, String> serialize(Suggestion suggestion) {
+    return Map.of("code", suggestion.code(), "message", suggestion.message());
+  }
+
+  synchronized void remove(String path, String tool) {
+    var key = new Key(path, tool);
+    if (entries.containsKey(key)) {
+      unindex(key);
+      append(Map.of("op", "remove", "path", path, "tool", tool));
+    }
+  }
+
+  synchronized void removeTool(String tool) {
+    var keys = keysOf(keysByTool.get(tool));
+    if (!keys.isEmpty()) {
+      keys.forEach(this::unindex);
+      append(Map.of("op", "removeTool", "tool", tool));
+    }
+  }
+
+  /**
+   * Remove the diagnostics for a path and for all paths below it.
+   *
+   * @param path the path to remove diagnostics for
+   */
+  synchronized void removeAll(String path) {
+    var keys = keysAtOrBelow(path);
+    if (!keys.isEmpty()) {
+      keys.forEach(this::unindex);
+      append(Map.of("op", "removeAll", "path", path));
+    }
+  }
+
+  private List<Key> keysAtOrBelow(String path) {
+    var below = "%s/".formatted(path);
+    return Stream.concat(
+            Stream.ofNullable(keysByPath.get(path)),
+            keysByPath.tailMap(below, true).entrySet().stream()
+                .takeWhile(entry -> entry.getKey().startsWith(below))
+                .map(Map.Entry::getValue))
+        .flatMap(Collection::stream)
+        .toList();
+  }
+
+  private List<Key> keysOf(Set<Key> keys) {
+    return keys == null ? emptyList() : List.copyOf(keys);
+  }
+
+  private void index(Key key, Entry entry) {
+    unindex(key);
+    pathsChangedSincePublished.add(key.path());
+    entries.put(key, entry);
+    keysByPath.computeIfAbsent(key.path(), ignored -> new HashSet<>()).add(key);
+    keysByTool.computeIfAbsent(key.tool(), ignored -> new HashSet<>()).add(key);
+  }
+
+  private void unindex(Key key) {
+    if (entries.remove(key) == null) {
+      return;
+    }
+    pathsChangedSincePublished.add(key.path());
+    removeFrom(keysByPath, key.path(), key);
+    removeFrom(keysByTool, key.tool(), key);
+  }
+
+  private <K> void removeFrom(Map<K, Set<Key>> keysByValue, K value, Key key) {
+    keysByValue.computeIfPresent(
+        value,
+        (ignored, keys) -> {
+          keys.remove(key);
+          return keys.isEmpty() ? null : keys;
+        });
+  }
+
+  private void append(Map<String, Object> change) {
+    lines++;
+    if (lines > Math.max(MIN_LINES_BEFORE_COMPACTION, 2 * entries.size())) {
+      compactionDue = true;
+    }
+    if (!compactionDue) {
+      unwrittenChanges.add(change);
+    }
+  }
+
+  /**
+   * Make the current diagnostics visible to readers of the published snapshot, and write the
+   * changes since the last time to the log. Only the paths that changed since the last time are
+   * replaced.
+   */
+  void publish() {
+    synchronized (writing) {
+      List<Map<String, Object>> changes;
+      Map<Key, Entry> compacted = null;
+      synchronized (this) {
+        publishChangedPaths();
+        if (compactionDue) {
+          // The current entries include all unwritten changes
+          compacted = new HashMap<>(entries);
+          lines = entries.size();
+          compactionDue = false;
+          changes = List.of();
+        } else {
+          changes = List.copyOf(unwrittenChanges);
+        }
+        unwrittenChanges.clear();
+      }
+      write(changes, compacted);
+    }
+  }
+
+  private void write(List<Map<String, Object>> changes, Map<Key, Entry> compacted) {
+    if (compacted == null && changes.isEmpty()) {
+      return;
+    }
+    try (var writer =
+        writerFor(compacted == null ? changeLog().appendTo() : changeLog().writeTo())) {
+      if (compacted != null) {
+        compacted.forEach((key, entry) -> writer.println(new JSONObject(storeChange(key, entry))));
+      }
+      changes.forEach(change -> writer.println(new JSONObject(change)));
+      if (writer.checkError()) {
+        throw new IOException("Failed to write " + LOG_PATH);
+      }
+    } catch (IOException e) {
+      log.error("Failed to store diagnostics", e);
+      synchronized (this) {
+        // Rewrite the log from memory, since it misses changes now
+        compactionDue = true;
+        unwrittenChanges.clear();
+      }
+    }
+  }
+
+  private PrintWriter writerFor(OutputStream output) {
+    return new PrintWriter(output, false, StandardCharsets.UTF_8);
+  }
+
+  private void publishChangedPaths() {
+    if (pathsChangedSincePublished.isEmpty()) {
+      return;
+    }
+    var changedByPath = new HashMap<String, List<Diagnostic>>();
+    pathsChangedSincePublished.forEach(
+        path ->
+            changedByPath.put(
+                path,
+                keysOf(keysByPath.get(path)).stream()
+                    .map(entries::get)
+                    .map(Entry::diagnostics)
+                    .flatMap(Collection::stream)
+                    .toList()));
+    published = published.with(changedByPath);
+    pathsChangedSincePublished.clear();
+  }
+
+  DiagnosticsSnapshot published() {
+    return published;
+  }
+
+  synchronized Collection<String> pathsWithDiagnosticsFor(String tool) {
+    return keysOf(keysByTool.get(tool)).stream().map(Key::path).toList();
+  }
+
+  /**
+   * When the artifact at a path was last validated by all tools that validated it.
+   *
+   * @param path the path of the artifact
+   * @return the oldest validation time, or nothing if the artifact wasn't validated
+   */
+  synchronized Optional<LocalDateTime> lastValidated(String path) {
+    return keysOf(keysByPath.get(path)).stream()
+        .map(entries::get)
+        .map(Entry::validatedAt)
+        .min(LocalDateTime::compareTo);
+  }
+
+  private record Key(String path, String tool) {}
+
+  private record Entry(LocalDateTime validatedAt, List<Diagnostic> diagnostics) {}
+}
@@ -0,0 +1,21 @@
+package org.setms.km.domain.model.orchestration;
+
+/**
+ * Summary of recorded values, like latencies in nanoseconds or sizes. Percentiles are approximate:
+ * they're the upper bound of the power-of-two bucket holding the percentile, capped at the maximum.
+ *
+ * @param count the number of recorded values
+ * @param total the sum of the recorded values
+ * @param max the largest recorded value
+ * @param p50 the median
+ * @param p90 the 90th percentile
+ * @param p99 the 99th percentile
+ */
+public record Distribution(long count, long total, long max, long p50, long p90, long p99) {
+
+  public static final Distribution EMPTY = new Distribution(0, 0, 0, 0, 0, 0);
+
+  public double mean() {
+    return count == 0 ? 0 : (double) total / count;
+  }
+}
@@ -0,0 +1,159 @@
+package org.setms.km.domain.model.orchestration;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Generation numbers that order the changes to artifacts and the results of processing them. Work
+ * for a path is superseded when a newer change to that path arrived, and a result is stale when a
+ * result of a newer generation was already stored. What's known about deleted paths is kept until
+ * it's {@linkplain #forgetDeleted() forgotten}, which waits for all work of older generations to be
+ * done.
+ */
+class Generations {
+
+  private final Map<String, Long> latestByPath = new ConcurrentHashMap<>();
+  private final Map<Object, Stored> storedByKey = new ConcurrentHashMap<>();
+  private final Map<String, Long> deletedByPath = new ConcurrentHashMap<>();
+  private final NavigableMap<Long, Integer> runningByGeneration = new TreeMap<>();
+
+  /**
+   * Start work of a new generation. Call {@linkplain #end(long)} when it's done, including storing
+   * its results.
+   *
+   * @param nextGeneration where to get the new generation
+   * @return the generation of the work
+   */
+  synchronized long begin(LongSupplier nextGeneration) {
+    // Taking the generation and counting its work in one step keeps forgetting from slipping in
+    var result = nextGeneration.getAsLong();
+    runningByGeneration.merge(result, 1, Integer::sum);
+    return result;
+  }
+
+  synchronized void end(long generation) {
+    runningByGeneration.computeIfPresent(
+        generation, (ignored, count) -> count > 1 ? count - 1 : null);
+  }
+
+  /**
+   * Count work of a generation that runs later, for instance on another thread. Only call this
+   * while other work of that generation is running, and {@linkplain Work#drop() drop} the work when
+   * it won't run after all.
+   *
+   * @param generation the generation of the work
+   * @param work the work to do
+   * @return the counted work
+   */
+  synchronized Work track(long generation, Runnable work) {
+    runningByGeneration.merge(generation, 1, Integer::sum);
+    return new Work(generation, work);
+  }
+
+  void changed(Collection<String> paths, long generation) {
+    paths.forEach(path -> latestByPath.merge(path, generation, Math::max));
+  }
+
+  boolean isSuperseded(String path, long generation) {
+    return latestByPath.getOrDefault(path, generation) > generation;
+  }
+
+  boolean areSuperseded(Collection<String> paths, long generation) {
+    return !paths.isEmpty() && paths.stream().allMatch(path -> isSuperseded(path, generation));
+  }
+
+  /**
+   * Store a result, unless a result of a newer generation was already stored under the same key.
+   * Results for different keys are stored concurrently.
+   *
+   * @param key what the result is for, like a tool, or a list that starts with a path
+   * @param generation the generation of the result
+   * @param store how to store the result
+   * @return whether the result was stored
+   */
+  boolean storeIfCurrent(Object key, long generation, Runnable store) {
+    var stored = storedByKey.computeIfAbsent(key, ignored -> new Stored());
+    stored.lock.lock();
+    try {
+      if (stored.generation > generation) {
+        return false;
+      }
+      store.run();
+      stored.generation = generation;
+      return true;
+    } finally {
+      stored.lock.unlock();
+    }
+  }
+
+  void deleted(Collection<String> paths, long generation) {
+    paths.forEach(path -> deletedByPath.merge(path, generation, Math::max));
+  }
+
+  /**
+   * Forget the generations of deleted paths that didn't change again since. Deletions stay known
+   * while work of an older generation is running, since that work would otherwise no longer see
+   * that it's superseded.
+   */
+  synchronized void forgetDeleted() {
+    var oldestRunning =
+        runningByGeneration.isEmpty() ? Long.MAX_VALUE : runningByGeneration.firstKey();
+    var forgotten = new HashSet<String>();
+    deletedByPath.forEach(
+        (path, generation) -> {
+          if (generation >= oldestRunning) {
+            return;
+          }
+          if (latestByPath.remove(path, generation)) {
+            forgotten.add(path);
+          }
+          deletedByPath.remove(path, generation);
+        });
+    if (!forgotten.isEmpty()) {
+      storedByKey
+          .keySet()
+          .removeIf(key -> key instanceof List<?> list && forgotten.contains(list.getFirst()));
+    }
+  }
+
+  /** Work that counts as running for its generation until it's done or dropped. */
+  @RequiredArgsConstructor(access = PRIVATE)
+  final class Work implements Runnable {
+
+    private final long generation;
+    private final Runnable work;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    @Override
+    public void run() {
+      try {
+        work.run();
+      } finally {
+        drop();
+      }
+    }
+
+    void drop() {
+      if (done.compareAndSet(false, true)) {
+        end(generation);
+      }
+    }
+  }
+
+  private static class Stored {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long generation = Long.MIN_VALUE;
+  }
+}
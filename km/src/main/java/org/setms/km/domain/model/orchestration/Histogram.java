@@ -0,0 +1,65 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with a bucket per power of two, so that recording a value is cheap enough to
+ * do on every validation.
+ */
+class Histogram {
+
+  private static final int BUCKETS = Long.SIZE;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long value) {
+    var normalized = Math.max(0, value);
+    counts.incrementAndGet(bucketOf(normalized));
+    total.add(normalized);
+    max.accumulateAndGet(normalized, Math::max);
+  }
+
+  private int bucketOf(long value) {
+    return BUCKETS - Long.numberOfLeadingZeros(value);
+  }
+
+  Distribution snapshot() {
+    var snapshot = new long[BUCKETS];
+    var count = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return Distribution.EMPTY;
+    }
+    var largest = max.get();
+    return new Distribution(
+        count,
+        total.sum(),
+        largest,
+        percentile(snapshot, count, 50, largest),
+        percentile(snapshot, count, 90, largest),
+        percentile(snapshot, count, 99, largest));
+  }
+
+  private long percentile(long[] snapshot, long count, int percentile, long largest) {
+    var rank = Math.ceilDiv(count * percentile, 100);
+    var seen = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), largest);
+      }
+    }
+    return largest;
+  }
+
+  private long upperBoundOf(int bucket) {
+    return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+}
@@ -0,0 +1,138 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+import org.setms.km.domain.model.tool.Input;
+import org.setms.km.domain.model.workspace.GlobSet;
+import org.setms.km.domain.model.workspace.Resource;
+
+/**
+ * In-memory index from {@linkplain Input inputs} to the paths of the resources that match them.
+ * The index can be saved to and loaded from a compact snapshot, so that it doesn't have to be
+ * rebuilt from the workspace at startup.
+ */
+class InputIndex {
+
+  private static final String INPUT_PREFIX = "> ";
+
+  private final Map<Input<?>, SortedSet<String>> pathsByInput = new ConcurrentHashMap<>();
+  private volatile GlobSet<Input<?>> inputsByGlob = new GlobSet<>(List.of(), Input::glob);
+
+  synchronized void register(Input<?> input) {
+    if (pathsByInput.putIfAbsent(input, new ConcurrentSkipListSet<>()) == null) {
+      inputsByGlob = new GlobSet<>(List.copyOf(pathsByInput.keySet()), Input::glob);
+    }
+  }
+
+  Collection<Input<?>> inputs() {
+    return Collections.unmodifiableSet(pathsByInput.keySet());
+  }
+
+  SortedSet<String> pathsFor(Input<?> input) {
+    return Optional.ofNullable(pathsByInput.get(input))
+        .map(Collections::unmodifiableSortedSet)
+        .orElseGet(Collections::emptySortedSet);
+  }
+
+  Stream<String> allPaths() {
+    return pathsByInput.values().stream().flatMap(Collection::stream).distinct();
+  }
+
+  /**
+   * Replace the paths for an input.
+   *
+   * @param input the input to update
+   * @param paths the paths that currently match the input
+   * @return whether the index changed
+   */
+  boolean replace(Input<?> input, Collection<String> paths) {
+    register(input);
+    var current = pathsByInput.get(input);
+    var changed = current.retainAll(paths);
+    return current.addAll(paths) || changed;
+  }
+
+  /**
+   * Add a path to all inputs that match it.
+   *
+   * @param path the path to add
+   * @return whether the index changed
+   */
+  boolean add(String path) {
+    return update(path, true);
+  }
+
+  /**
+   * Remove a path from all inputs that match it.
+   *
+   * @param path the path to remove
+   * @return whether the index changed
+   */
+  boolean remove(String path) {
+    return update(path, false);
+  }
+
+  private boolean update(String path, boolean add) {
+    var result = false;
+    for (var input : inputsByGlob.matching(path)) {
+      var paths = pathsByInput.get(input);
+      result |= add ? paths.add(path) : paths.remove(path);
+    }
+    return result;
+  }
+
+  void save(Resource<?> snapshot) throws IOException {
+    try (var writer = new PrintWriter(snapshot.writeTo())) {
+      pathsByInput.forEach(
+          (input, paths) -> {
+            writer.println(INPUT_PREFIX + keyOf(input));
+            paths.forEach(writer::println);
+          });
+    }
+  }
+
+  /**
+   * Load a snapshot that was previously {@linkplain #save(Resource) saved}. Only inputs that are
+   * {@linkplain #register(Input) registered} are loaded.
+   *
+   * @param snapshot the resource containing the snapshot
+   * @return whether the snapshot was loaded
+   */
+  boolean load(Resource<?> snapshot) {
+    if (!snapshot.exists()) {
+      return false;
+    }
+    var inputsByKey = new HashMap<String, Input<?>>();
+    pathsByInput.keySet().forEach(input -> inputsByKey.put(keyOf(input), input));
+    var loaded = new HashMap<Input<?>, Collection<String>>();
+    try (var reader = new BufferedReader(new InputStreamReader(snapshot.readFrom()))) {
+      Collection<String> current = null;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(INPUT_PREFIX)) {
+          var input = inputsByKey.get(line.substring(INPUT_PREFIX.length()));
+          current = input == null ? null : loaded.computeIfAbsent(input, i -> new HashSet<>());
+        } else if (current != null && !line.isBlank()) {
+          current.add(line);
+        }
+      }
+    } catch (IOException e) {
+      return false;
+    }
+    if (!loaded.keySet().containsAll(pathsByInput.keySet())) {
+      return false;
+    }
+    loaded.forEach(this::replace);
+    return true;
+  }
+
+  private String keyOf(Input<?> input) {
+    return "%s %s %s".formatted(input.name(), input.glob(), input.type().getName());
+  }
+}
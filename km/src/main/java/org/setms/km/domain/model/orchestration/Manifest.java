@@ -0,0 +1,193 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import lombok.extern.slf4j.Slf4j;
+import org.setms.km.domain.model.workspace.Resource;
+
+/**
+ * Record of the content of validated artifacts, so that only artifacts that really changed are
+ * validated again at startup. Each entry holds the hash of the content, the time the artifact was
+ * last modified, the tools that validated it and the generation in which that happened. Changes are
+ * appended to a log, which is compacted when it holds many more lines than there are entries.
+ */
+@Slf4j
+class Manifest {
+
+  static final String PATH = ".km/manifest";
+  private static final String REMOVED = "-";
+  private static final String NO_TOOLS = "-";
+  private static final int MIN_LINES_BEFORE_COMPACTION = 1_000;
+
+  private final Resource<?> root;
+  private final Map<String, Entry> entriesByPath = new HashMap<>();
+  private long generation;
+  private int lines;
+
+  Manifest(Resource<?> root) {
+    this.root = root;
+    var changeLog = root.select(PATH);
+    if (changeLog.exists()) {
+      load(changeLog);
+    }
+  }
+
+  private void load(Resource<?> changeLog) {
+    try (var reader =
+        new BufferedReader(new InputStreamReader(changeLog.readFrom(), StandardCharsets.UTF_8))) {
+      reader.lines().forEach(this::replay);
+    } catch (IOException e) {
+      log.error("Failed to load manifest", e);
+    }
+  }
+
+  private void replay(String line) {
+    lines++;
+    if (line.startsWith(REMOVED + " ")) {
+      entriesByPath.remove(line.substring(REMOVED.length() + 1));
+      return;
+    }
+    var parts = line.split(" ", 5);
+    if (parts.length < 5) {
+      // A line that was only partially written
+      return;
+    }
+    try {
+      var entry =
+          new Entry(
+              parts[0],
+              LocalDateTime.parse(parts[1]),
+              Long.parseLong(parts[2]),
+              NO_TOOLS.equals(parts[3])
+                  ? new TreeSet<>()
+                  : new TreeSet<>(Arrays.asList(parts[3].split(","))));
+      entriesByPath.put(parts[4], entry);
+      generation = Math.max(generation, entry.generation());
+    } catch (DateTimeParseException | NumberFormatException e) {
+      // A line that was only partially written
+    }
+  }
+
+  synchronized long nextGeneration() {
+    return ++generation;
+  }
+
+  synchronized Set<String> paths() {
+    return new TreeSet<>(entriesByPath.keySet());
+  }
+
+  synchronized boolean contains(String path) {
+    return entriesByPath.containsKey(path);
+  }
+
+  /**
+   * Check whether an artifact needs to be validated again. The content is only hashed when its
+   * modification time differs from the recorded one.
+   *
+   * @param resource the artifact's resource
+   * @param tools the names of the tools that currently validate the artifact
+   * @return whether the artifact is unknown, changed, or validated by different tools
+   */
+  synchronized boolean isOutOfDate(Resource<?> resource, SortedSet<String> tools) {
+    var entry = entriesByPath.get(resource.path());
+    if (entry == null || !entry.tools().equals(tools)) {
+      return true;
+    }
+    var modifiedAt = resource.lastModifiedAt();
+    if (Objects.equals(modifiedAt, entry.modifiedAt())) {
+      return false;
+    }
+    var hash = hashOf(resource);
+    if (!entry.hash().equals(hash)) {
+      return true;
+    }
+    // Touched, but not changed
+    put(resource.path(), new Entry(hash, modifiedAt, entry.generation(), entry.tools()));
+    return false;
+  }
+
+  /**
+   * Record that an artifact was validated.
+   *
+   * @param resource the artifact's resource
+   * @param tools the names of the tools that validated the artifact
+   * @param generation the generation in which the artifact was validated
+   */
+  synchronized void validated(Resource<?> resource, SortedSet<String> tools, long generation) {
+    var modifiedAt = resource.lastModifiedAt();
+    if (modifiedAt == null) {
+      return;
+    }
+    put(resource.path(), new Entry(hashOf(resource), modifiedAt, generation, tools));
+  }
+
+  synchronized void remove(String path) {
+    if (entriesByPath.remove(path) != null) {
+      append("%s %s".formatted(REMOVED, path));
+    }
+  }
+
+  private void put(String path, Entry entry) {
+    entriesByPath.put(path, entry);
+    append(toLine(path, entry));
+  }
+
+  private String toLine(String path, Entry entry) {
+    return "%s %s %d %s %s"
+        .formatted(
+            entry.hash(),
+            entry.modifiedAt(),
+            entry.generation(),
+            entry.tools().isEmpty() ? NO_TOOLS : String.join(",", entry.tools()),
+            path);
+  }
+
+  private void append(String line) {
+    lines++;
+    if (lines > Math.max(MIN_LINES_BEFORE_COMPACTION, 2 * entriesByPath.size())) {
+      compact();
+      return;
+    }
+    try (var writer = writerFor(root.select(PATH).appendTo())) {
+      writer.println(line);
+    } catch (IOException e) {
+      log.error("Failed to update manifest", e);
+    }
+  }
+
+  private PrintWriter writerFor(OutputStream output) {
+    return new PrintWriter(output, false, StandardCharsets.UTF_8);
+  }
+
+  private void compact() {
+    try (var writer = writerFor(root.select(PATH).writeTo())) {
+      entriesByPath.forEach((path, entry) -> writer.println(toLine(path, entry)));
+    } catch (IOException e) {
+      log.error("Failed to update manifest", e);
+    }
+    lines = entriesByPath.size();
+  }
+
+  private String hashOf(Resource<?> resource) {
+    try (var input = resource.readFrom()) {
+      var digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(input.readAllBytes()));
+    } catch (IOException e) {
+      return "";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private record Entry(
+      String hash, LocalDateTime modifiedAt, long generation, SortedSet<String> tools) {}
+}
@@ -0,0 +1,80 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.setms.km.domain.model.format.Format;
+import org.setms.km.domain.model.tool.Input;
+import org.setms.km.domain.model.tool.Tool;
+
+/** Records what a process orchestrator does, without locking. */
+class MetricsRecorder {
+
+  private final Map<String, Histogram> validationByTool = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> reportingByTool = new ConcurrentHashMap<>();
+  private final Map<String, ParseCounter> parsesByFormat = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> resolvedInputsByInput = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> deferredInputsByInput = new ConcurrentHashMap<>();
+  private final Histogram cascadesPerChange = new Histogram();
+
+  void validated(Tool tool, long nanos) {
+    histogramFor(validationByTool, tool.getClass().getName()).record(nanos);
+  }
+
+  void reported(Tool tool, long nanos) {
+    histogramFor(reportingByTool, tool.getClass().getName()).record(nanos);
+  }
+
+  void parsed(Format format, long bytes) {
+    var counter =
+        parsesByFormat.computeIfAbsent(format.getClass().getName(), ignored -> new ParseCounter());
+    counter.count.increment();
+    counter.bytes.add(bytes);
+  }
+
+  void deferred(Input<?> input) {
+    deferredInputsByInput.computeIfAbsent(input.name(), ignored -> new LongAdder()).increment();
+  }
+
+  void resolved(Input<?> input, int size) {
+    histogramFor(resolvedInputsByInput, input.name()).record(size);
+  }
+
+  void cascaded(int validations) {
+    cascadesPerChange.record(validations);
+  }
+
+  private Histogram histogramFor(Map<String, Histogram> histograms, String key) {
+    return histograms.computeIfAbsent(key, ignored -> new Histogram());
+  }
+
+  OrchestratorMetrics snapshot(int queueDepth, int backlog) {
+    return new OrchestratorMetrics(
+        snapshot(validationByTool, Histogram::snapshot),
+        snapshot(reportingByTool, Histogram::snapshot),
+        snapshot(parsesByFormat, ParseCounter::snapshot),
+        snapshot(resolvedInputsByInput, Histogram::snapshot),
+        snapshot(deferredInputsByInput, LongAdder::sum),
+        cascadesPerChange.snapshot(),
+        queueDepth,
+        backlog);
+  }
+
+  private <T, S> Map<String, S> snapshot(Map<String, T> values, Function<T, S> snapshotter) {
+    var result = new TreeMap<String, S>();
+    values.forEach((key, value) -> result.put(key, snapshotter.apply(value)));
+    return result;
+  }
+
+  private static class ParseCounter {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    ParseStatistics snapshot() {
+      return new ParseStatistics(count.sum(), bytes.sum());
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.json.JSONObject;
+
+/**
+ * Where a process orchestrator spends its time. Latencies are in nanoseconds.
+ *
+ * @param validationByTool the latency of validations, by tool class name
+ * @param reportingByTool the latency of building reports, by tool class name
+ * @param parsesByFormat the parsed artifacts, by format class name
+ * @param resolvedInputsByInput the number of artifacts resolved for an input that a tool read, by
+ *     input name
+ * @param deferredInputsByInput the number of times an input was handed to a tool, by input name;
+ *     the difference with the number of resolutions is the work saved by tools that didn't read it
+ * @param cascadesPerChange the number of validations of dependent artifacts triggered by a change
+ * @param queueDepth the number of paths with changes waiting to be delivered by the workspace
+ * @param backlog the number of delivered changes waiting to be processed
+ */
+public record OrchestratorMetrics(
+    Map<String, Distribution> validationByTool,
+    Map<String, Distribution> reportingByTool,
+    Map<String, ParseStatistics> parsesByFormat,
+    Map<String, Distribution> resolvedInputsByInput,
+    Map<String, Long> deferredInputsByInput,
+    Distribution cascadesPerChange,
+    int queueDepth,
+    int backlog) {
+
+  public String toJson() {
+    var result = new LinkedHashMap<String, Object>();
+    result.put("validationByTool", toJson(validationByTool, this::toJson));
+    result.put("reportingByTool", toJson(reportingByTool, this::toJson));
+    result.put("parsesByFormat", toJson(parsesByFormat, this::toJson));
+    result.put("resolvedInputsByInput", toJson(resolvedInputsByInput, this::toJson));
+    result.put("deferredInputsByInput", new TreeMap<>(deferredInputsByInput));
+    result.put("cascadesPerChange", toJson(cascadesPerChange));
+    result.put("queueDepth", queueDepth);
+    result.put("backlog", backlog);
+    return new JSONObject(result).toString(2);
+  }
+
+  private <T> Map<String, Object> toJson(Map<String, T> values, Function<T, Object> converter) {
+    var result = new TreeMap<String, Object>();
+    values.forEach((key, value) -> result.put(key, converter.apply(value)));
+    return result;
+  }
+
+  private Object toJson(Distribution distribution) {
+    return Map.of(
+        "count", distribution.count(),
+        "total", distribution.total(),
+        "max", distribution.max(),
+        "p50", distribution.p50(),
+        "p90", distribution.p90(),
+        "p99", distribution.p99());
+  }
+
+  private Object toJson(ParseStatistics statistics) {
+    return Map.of("count", statistics.count(), "bytes", statistics.bytes());
+  }
+}
@@ -0,0 +1,46 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.time.Duration;
+
+/**
+ * Settings for a {@linkplain ProcessOrchestrator process orchestrator}.
+ *
+ * @param artifactCacheCapacity the maximum number of paths to keep parsed artifacts for
+ * @param parallelism the maximum number of tools that validate at the same time
+ * @param slowLaneParallelism the maximum number of slow tools that validate at the same time
+ * @param slowToolThreshold the typical validation time above which a tool is considered slow
+ */
+public record OrchestratorSettings(
+    int artifactCacheCapacity,
+    int parallelism,
+    int slowLaneParallelism,
+    Duration slowToolThreshold) {
+
+  public static OrchestratorSettings defaults() {
+    return new OrchestratorSettings(
+        ArtifactCache.DEFAULT_CAPACITY,
+        Runtime.getRuntime().availableProcessors(),
+        SlowLane.DEFAULT_PARALLELISM,
+        SlowLane.DEFAULT_THRESHOLD);
+  }
+
+  public OrchestratorSettings withArtifactCacheCapacity(int artifactCacheCapacity) {
+    return new OrchestratorSettings(
+        artifactCacheCapacity, parallelism, slowLaneParallelism, slowToolThreshold);
+  }
+
+  public OrchestratorSettings withParallelism(int parallelism) {
+    return new OrchestratorSettings(
+        artifactCacheCapacity, parallelism, slowLaneParallelism, slowToolThreshold);
+  }
+
+  public OrchestratorSettings withSlowLaneParallelism(int slowLaneParallelism) {
+    return new OrchestratorSettings(
+        artifactCacheCapacity, parallelism, slowLaneParallelism, slowToolThreshold);
+  }
+
+  public OrchestratorSettings withSlowToolThreshold(Duration slowToolThreshold) {
+    return new OrchestratorSettings(
+        artifactCacheCapacity, parallelism, slowLaneParallelism, slowToolThreshold);
+  }
+}
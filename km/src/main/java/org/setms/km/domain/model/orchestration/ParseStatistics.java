@@ -0,0 +1,9 @@
+package org.setms.km.domain.model.orchestration;
+
+/**
+ * Statistics about parsing artifacts in a format.
+ *
+ * @param count the number of parsed artifacts
+ * @param bytes the number of bytes read while parsing
+ */
+public record ParseStatistics(long count, long bytes) {}
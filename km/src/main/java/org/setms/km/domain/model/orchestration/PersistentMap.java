@@ -0,0 +1,106 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Immutable map that shares its structure with the map it was derived from. Keys are spread over a
+ * fixed-depth tree of small arrays by their hash, so changing a key only copies the arrays on the
+ * way to it and the few keys that share its bucket, rather than the whole map.
+ */
+final class PersistentMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int DEPTH = 3;
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+  // Arrays down to the last level, whose elements are the buckets that map keys to values
+  private final Object[] top;
+  private final int size;
+
+  private PersistentMap(Object[] top, int size) {
+    this.top = top;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(K key) {
+    Object node = top;
+    var hash = hash(key);
+    for (var level = 0; level < DEPTH && node != null; level++) {
+      node = ((Object[]) node)[indexAt(hash, level)];
+    }
+    return node == null ? null : ((Map<K, V>) node).get(key);
+  }
+
+  /**
+   * A map that differs from this one only for one key.
+   *
+   * @param key the key to change
+   * @param value the new value, or {@code null} to remove the key
+   * @return the new map
+   */
+  PersistentMap<K, V> with(K key, V value) {
+    var previous = get(key);
+    if (previous == null && value == null) {
+      return this;
+    }
+    var newSize = size - (previous == null ? 0 : 1) + (value == null ? 0 : 1);
+    return new PersistentMap<>((Object[]) with(top, 0, hash(key), key, value), newSize);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object with(Object node, int level, int hash, K key, V value) {
+    if (level == DEPTH) {
+      var bucket = node == null ? new HashMap<K, V>() : new HashMap<>((Map<K, V>) node);
+      if (value == null) {
+        bucket.remove(key);
+      } else {
+        bucket.put(key, value);
+      }
+      return bucket.isEmpty() ? null : Collections.unmodifiableMap(bucket);
+    }
+    var children = node == null ? new Object[WIDTH] : ((Object[]) node).clone();
+    var index = indexAt(hash, level);
+    children[index] = with(children[index], level + 1, hash, key, value);
+    return Arrays.stream(children).allMatch(Objects::isNull) ? null : children;
+  }
+
+  Stream<V> values() {
+    return values(top, 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Stream<V> values(Object node, int level) {
+    if (node == null) {
+      return Stream.empty();
+    }
+    if (level == DEPTH) {
+      return ((Map<K, V>) node).values().stream();
+    }
+    return Arrays.stream((Object[]) node).flatMap(child -> values(child, level + 1));
+  }
+
+  private static int hash(Object key) {
+    var result = key.hashCode();
+    return result ^ (result >>> 16);
+  }
+
+  private static int indexAt(int hash, int level) {
+    return (hash >>> (level * BITS)) & (WIDTH - 1);
+  }
+}
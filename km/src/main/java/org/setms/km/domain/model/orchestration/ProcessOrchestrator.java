@@ -1,26 +1,32 @@
 package org.setms.km.domain.model.orchestration;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Comparator.comparing;
+import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toSet;
 import static org.setms.km.domain.model.tool.AppliedSuggestion.none;
 import static org.setms.km.domain.model.validation.Level.ERROR;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.BiFunction;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.setms.km.domain.model.artifact.Artifact;
+import org.setms.km.domain.model.artifact.Link;
 import org.setms.km.domain.model.format.Format;
 import org.setms.km.domain.model.tool.AppliedSuggestion;
 import org.setms.km.domain.model.tool.ArtifactTool;
+import org.setms.km.domain.model.tool.Cancellation;
 import org.setms.km.domain.model.tool.Input;
 import org.setms.km.domain.model.tool.ResolvedInputs;
 import org.setms.km.domain.model.tool.StandaloneTool;
@@ -29,198 +35,563 @@ import org.setms.km.domain.model.tool.Tools;
 import org.setms.km.domain.model.validation.Diagnostic;
 import org.setms.km.domain.model.validation.Level;
 import org.setms.km.domain.model.validation.Location;
-import org.setms.km.domain.model.validation.Suggestion;
 import org.setms.km.domain.model.validation.Validation;
 import org.setms.km.domain.model.validation.ValidationException;
 import org.setms.km.domain.model.workspace.ArtifactDefinition;
+import org.setms.km.domain.model.workspace.ChangeBatch;
 import org.setms.km.domain.model.workspace.Resource;
 import org.setms.km.domain.model.workspace.Workspace;
-import tools.jackson.databind.ObjectMapper;
-import tools.jackson.databind.json.JsonMapper;
 
 @Slf4j
 public class ProcessOrchestrator {
 
-  private static final String INPUTS = "inputs";
-  private static final String PATHS = "paths";
+  private static final String INPUT_INDEX_PATH = ".km/inputs.snapshot";
+  private static final String METRICS_PATH = ".km/metrics/orchestrator.json";
+  private static final String TRACE_PATH = ".km/metrics/trace.json";
   public static final LocalDateTime LONG_AGO = LocalDateTime.of(0, 1, 1, 0, 0);
 
-  private final ObjectMapper mapper = new JsonMapper();
+  private final InputIndex inputIndex = new InputIndex();
+  private final ArtifactCache artifactCache;
+  private final ResolvedInputCache resolvedInputCache = new ResolvedInputCache();
+  private final ReportStaging reportStaging;
+  private final DependencyGraph dependencyGraph;
+  private final ReferenceIndex referenceIndex = new ReferenceIndex();
+  private final DiagnosticsStore diagnosticsStore;
+  private final Manifest manifest;
+  private final CatchUpTracker catchUp = new CatchUpTracker();
+  private final CatchUpQueue catchUpQueue;
+  private final AtomicInteger focusedWork = new AtomicInteger();
+  private volatile Set<String> focused = Set.of();
+  private final MetricsRecorder metrics = new MetricsRecorder();
+  private final CausalTrace trace = new CausalTrace();
+  private final AtomicInteger backlog = new AtomicInteger();
+  private final Generations generations = new Generations();
+  private final ValidationScheduler scheduler;
+  private final SlowLane slowLane;
   @Getter private final Workspace<?> workspace;
+  private final AtomicBoolean inputIndexChanged = new AtomicBoolean();
+  private boolean inputIndexLoadedFromSnapshot;
 
   public ProcessOrchestrator(Workspace<?> workspace) {
+    this(workspace, OrchestratorSettings.defaults());
+  }
+
+  /**
+   * Create a process orchestrator.
+   *
+   * @param workspace the workspace to orchestrate
+   * @param settings how to orchestrate
+   */
+  public ProcessOrchestrator(Workspace<?> workspace, OrchestratorSettings settings) {
     this.workspace = workspace;
-    cacheInputs();
+    // Nobody reacts to changes to the diagnostics, which are written after each change
+    workspace.ignoreChangesTo(DiagnosticsStore.LOG_PATH);
+    this.diagnosticsStore = new DiagnosticsStore(workspace.root());
+    this.manifest = new Manifest(workspace.root());
+    this.reportStaging = new ReportStaging(workspace.root());
+    this.artifactCache = new ArtifactCache(settings.artifactCacheCapacity());
+    this.scheduler = new ValidationScheduler(settings.parallelism(), this::mayWaitForOtherThreads);
+    this.slowLane =
+        new SlowLane(
+            settings.slowLaneParallelism(),
+            settings.slowToolThreshold(),
+            diagnosticsStore::publish);
+    this.dependencyGraph = new DependencyGraph(Tools.all().toList());
+    this.catchUpQueue =
+        new CatchUpQueue(dependencyGraph::depthOf, this::isFocused, () -> focusedWork.get() > 0);
+    loadInputIndex();
     registerHandlers();
     registerArtifactDefinitions();
     validateArtifactsInBackground();
   }
 
-  private void cacheInputs() {
+  private void loadInputIndex() {
     Tools.all()
         .map(Tool::allInputs)
         .flatMap(Collection::stream)
         .distinct()
-        .forEach(this::cacheInput);
+        .forEach(inputIndex::register);
+    inputIndexLoadedFromSnapshot = inputIndex.load(inputIndexSnapshot());
+    if (!inputIndexLoadedFromSnapshot) {
+      cacheInputs();
+    }
   }
 
-  private void cacheInput(Input<?> input) {
+  private Resource<?> inputIndexSnapshot() {
+    return workspace.root().select(INPUT_INDEX_PATH);
+  }
+
+  private void cacheInputs() {
+    // Scan the workspace once for all inputs, rather than once per input
     var paths =
-        workspace.root().matching(input.path(), input.extension()).stream()
+        workspace.root().matching("", "*").stream()
             .map(Resource::path)
-            .filter(input::matches)
-            .collect(toSet());
-    writeInputPaths(resourceContainingPathsFor(input), paths);
+            .filter(not(this::isInternalResource))
+            .toList();
+    var changed = false;
+    for (var input : inputIndex.inputs()) {
+      changed |= inputIndex.replace(input, paths.stream().filter(input::matches).toList());
+    }
+    if (changed) {
+      resolvedInputCache.clear();
+      saveInputIndex();
+    }
   }
 
-  private Resource<?> resourceContainingPathsFor(Input<?> input) {
-    return workspace
-        .root()
-        .select(
-            ".km/%s/%s/%s/%s.%s"
-                .formatted(INPUTS, input.name(), input.path(), input.extension(), PATHS));
+  private void saveInputIndex() {
+    try {
+      inputIndex.save(inputIndexSnapshot());
+    } catch (IOException e) {
+      log.error("Failed to save input index", e);
+    }
   }
 
-  private void writeInputPaths(
-      Resource<? extends Resource<?>> inputResource, Collection<String> paths) {
-    try (var writer = new PrintWriter(inputResource.writeTo())) {
-      paths.forEach(writer::println);
-    } catch (IOException e) {
-      throw new IllegalStateException("Failed to update input paths", e);
+  private void saveInputIndexIfChanged() {
+    // Changes that arrive while saving mark the index as changed again
+    if (inputIndexChanged.compareAndSet(true, false)) {
+      saveInputIndex();
     }
   }
 
+  SortedSet<String> pathsMatching(Input<?> input) {
+    return inputIndex.pathsFor(input);
+  }
+
   private void registerHandlers() {
-    workspace.registerArtifactChangedHandler(this::artifactChanged);
-    workspace.registerArtifactDeletedHandler(this::artifactDeleted);
+    workspace.registerChangeBatchHandler(this::artifactsChanged);
   }
 
-  private synchronized void artifactChanged(String path, Artifact artifact) {
-    if (artifact == null || isInternalResource(path)) {
-      return;
-    }
-    addToInputs(path);
-    if (isInvalid(path, artifact)) {
-      return;
+  private void artifactsChanged(ChangeBatch batch) {
+    batch.changed().keySet().forEach(artifactCache::invalidate);
+    batch.deleted().forEach(artifactCache::invalidate);
+    batch
+        .changed()
+        .forEach(
+            (path, artifact) -> artifactCache.put(path, batch.modifiedAt().get(path), artifact));
+    resolvedInputCache.invalidate(batch.changed().keySet());
+    resolvedInputCache.invalidate(batch.deleted());
+    var changed = new LinkedHashMap<String, Artifact>();
+    for (var entry : batch.changed().entrySet()) {
+      if (entry.getValue() != null && !isInternalResource(entry.getKey())) {
+        changed.put(entry.getKey(), entry.getValue());
+      }
     }
-    validateAndBuildArtifact(path, artifact);
+    var deleted = batch.deleted().stream().filter(not(this::isInternalResource)).toList();
+    processChanges(changed, deleted, "workspace change");
+  }
+
+  /**
+   * Process changes to several artifacts at once. Indexes are updated once, each affected
+   * validation runs once, and each affected report is rebuilt once.
+   *
+   * @param changed the paths of the created or changed artifacts
+   * @param deleted the paths of the deleted artifacts
+   */
+  public void applyChanges(Collection<String> changed, Collection<String> deleted) {
+    changed.forEach(artifactCache::invalidate);
+    deleted.forEach(artifactCache::invalidate);
+    resolvedInputCache.invalidate(changed);
+    resolvedInputCache.invalidate(deleted);
+    var artifacts = new LinkedHashMap<String, Artifact>();
+    changed.stream()
+        .filter(not(this::isInternalResource))
+        .forEach(path -> parse(path).ifPresent(artifact -> artifacts.put(path, artifact)));
+    processChanges(
+        artifacts,
+        deleted.stream().filter(not(this::isInternalResource)).toList(),
+        "applied changes");
   }
 
   private boolean isInternalResource(String path) {
     return path.startsWith("/.km/");
   }
 
-  private void addToInputs(String path) {
-    Tools.all()
-        .map(Tool::allInputs)
-        .flatMap(Collection::stream)
-        .distinct()
-        .filter(input -> input.matches(path))
-        .forEach(input -> addInputPath(input, path));
+  /**
+   * Give priority to work for an artifact and the artifacts it links to, for instance because the
+   * user is looking at it. Changes to these artifacts are processed before other changes that
+   * arrive with them, and they jump the queue of artifacts to catch up on. Catching up on other
+   * artifacts waits while changes to these artifacts are processed.
+   *
+   * @param path the path of the artifact, or {@code null} to give no artifact priority
+   */
+  public void focus(String path) {
+    if (path == null) {
+      focused = Set.of();
+    } else {
+      var paths = new HashSet<>(referenceIndex.targetsOfArtifactAt(path));
+      paths.add(path);
+      focused = Set.copyOf(paths);
+    }
+    catchUpQueue.wake();
   }
 
-  private void addInputPath(Input<?> input, String path) {
-    updateInputPaths(input, path, Collection::add);
+  private boolean isFocused(String path) {
+    return focused.contains(path);
   }
 
-  private void updateInputPaths(
-      Input<?> input, String path, BiFunction<Collection<String>, String, Boolean> updater) {
-    var globPath = resourceContainingPathsFor(input);
-    var paths = linesOfTextIn(globPath);
-    if (updater.apply(paths, path)) {
-      writeInputPaths(globPath, paths);
+  private void processChanges(
+      Map<String, Artifact> changed, Collection<String> deleted, String reason) {
+    var focusedChanged = new LinkedHashMap<String, Artifact>();
+    changed.forEach(
+        (path, artifact) -> {
+          if (isFocused(path)) {
+            focusedChanged.put(path, artifact);
+          }
+        });
+    var focusedDeleted = deleted.stream().filter(this::isFocused).toList();
+    var numFocused = focusedChanged.size() + focusedDeleted.size();
+    if (numFocused == 0 || numFocused == changed.size() + deleted.size()) {
+      processChanges(changed, deleted, numFocused > 0, reason);
+      return;
     }
+    processChanges(focusedChanged, focusedDeleted, true, reason);
+    var otherChanged = new LinkedHashMap<>(changed);
+    otherChanged.keySet().removeAll(focusedChanged.keySet());
+    processChanges(
+        otherChanged, deleted.stream().filter(not(this::isFocused)).toList(), false, reason);
   }
 
-  private Collection<String> linesOfTextIn(Resource<? extends Resource<?>> resource) {
-    var result = new TreeSet<String>();
-    try (var reader = new BufferedReader(new InputStreamReader(resource.readFrom()))) {
-      reader.lines().forEach(result::add);
-    } catch (IOException ignored) {
-      // Ignore
+  private void processChanges(
+      Map<String, Artifact> changed,
+      Collection<String> deleted,
+      boolean isFocused,
+      String reason) {
+    if (changed.isEmpty() && deleted.isEmpty()) {
+      return;
     }
-    return result;
+    if (isFocused) {
+      focusedWork.incrementAndGet();
+    }
+    try {
+      trace.run(
+          "change",
+          reason,
+          () -> doProcessChangesInOrder(changed, deleted),
+          () ->
+              new String[] {
+                "changed",
+                changed.keySet().toString(),
+                "deleted",
+                deleted.toString()
+              });
+    } finally {
+      if (isFocused) {
+        focusedWork.decrementAndGet();
+        catchUpQueue.wake();
+      }
+    }
+  }
+
+  private void doProcessChangesInOrder(Map<String, Artifact> changed, Collection<String> deleted) {
+    var paths = new ArrayList<>(changed.keySet());
+    paths.addAll(deleted);
+    // Take the generation before waiting, so that older work can see that it's superseded
+    var generation = generations.begin(manifest::nextGeneration);
+    backlog.incrementAndGet();
+    try {
+      generations.changed(paths, generation);
+      scheduler.inOrderFor(paths, () -> doProcessChanges(changed, deleted, generation));
+      generations.deleted(deleted, generation);
+    } finally {
+      backlog.decrementAndGet();
+      generations.end(generation);
+    }
+    if (backlog.get() == 0) {
+      // Save once after a burst of changes rather than after each; catch-up heals a stale snapshot
+      saveInputIndexIfChanged();
+    }
+    generations.forgetDeleted();
+    diagnosticsStore.publish();
+  }
+
+  private void doProcessChanges(
+      Map<String, Artifact> changed, Collection<String> deleted, long generation) {
+    var previousReferrers = new HashMap<String, Set<String>>();
+    var inputsChanged = false;
+    for (var path : deleted) {
+      manifest.remove(path);
+      inputsChanged |= inputIndex.remove(path);
+      previousReferrers.put(path, new TreeSet<>(referenceIndex.referrersOfArtifactAt(path)));
+      referenceIndex.remove(path);
+      deleteInternalResourcesReferencing(path);
+    }
+    var valid = new LinkedHashMap<String, Artifact>();
+    for (var entry : changed.entrySet()) {
+      var path = entry.getKey();
+      var artifact = entry.getValue();
+      inputsChanged |= inputIndex.add(path);
+      previousReferrers.put(path, new TreeSet<>(referenceIndex.referrersOfArtifactAt(path)));
+      referenceIndex.update(path, artifact);
+      if (!isInvalid(path, artifact, generation)) {
+        valid.put(path, artifact);
+      }
+    }
+    if (inputsChanged) {
+      inputIndexChanged.set(true);
+    }
+    var paths = new ArrayList<>(deleted);
+    paths.addAll(changed.keySet());
+    resolvedInputCache.invalidate(paths);
+    var withErrors = validate(valid, generation);
+    var sources = new ArrayList<>(deleted);
+    sources.addAll(valid.keySet());
+    var handled = new HashSet<>(changed.keySet());
+    handled.addAll(deleted);
+    metrics.cascaded(
+        revalidateArtifactsThatDependOn(sources, previousReferrers, handled, generation));
+    valid.keySet().removeAll(withErrors);
+    rebuildReportsThatDependOn(valid, generation);
+    for (var path : changed.keySet()) {
+      if (!generations.isSuperseded(path, generation)) {
+        manifest.validated(workspace.root().select(path), toolsValidating(path), generation);
+      }
+    }
+  }
+
+  private void runUnlessSuperseded(Collection<String> paths, long generation, Runnable work) {
+    BooleanSupplier superseded = () -> generations.areSuperseded(paths, generation);
+    if (superseded.getAsBoolean()) {
+      return;
+    }
+    try {
+      Cancellation.run(superseded, work);
+    } catch (CancellationException e) {
+      log.debug("Cancelled superseded work for {}", paths);
+    }
+  }
+
+  private SortedSet<String> toolsValidating(String path) {
+    return dependencyGraph.validatorsOf(path).stream()
+        .filter(tool -> tool.validates(path))
+        .map(tool -> tool.getClass().getName())
+        .collect(toCollection(TreeSet::new));
   }
 
-  private boolean isInvalid(String path, Artifact artifact) {
+  private boolean isInvalid(String path, Artifact artifact, long generation) {
     try {
       Validation.validate(artifact);
     } catch (ValidationException e) {
-      storeDiagnostics(path, Validation.class, e.getDiagnostics());
+      storeDiagnostics(path, Validation.class, e.getDiagnostics(), generation);
       return true;
     }
     return false;
   }
 
-  private void validateAndBuildArtifact(String path, Artifact artifact) {
-    var valid = validate(path, artifact);
-    revalidateArtifactsThatDependOn(path);
-    if (valid) {
-      var buildResource = reportResourceFor(path);
-      rebuildReportsThatDependOn(artifact, buildResource);
+  private Set<String> validate(Map<String, Artifact> artifacts, long generation) {
+    Set<String> result = ConcurrentHashMap.newKeySet();
+    var validations = new ArrayList<Runnable>();
+    for (var entry : artifacts.entrySet()) {
+      var path = entry.getKey();
+      for (var tool : Tools.validating(path, entry.getValue())) {
+        if (slowLane.isSlow(tool)) {
+          // Errors found by slow tools don't hold back reports, since they arrive later
+          submitSlowWork(
+              List.of(tool, path),
+              generation,
+              () ->
+                  runUnlessSuperseded(
+                      List.of(path),
+                      generation,
+                      () -> validate(tool, path, entry.getValue(), generation)));
+          continue;
+        }
+        validations.add(
+            trace.inheriting(
+                () ->
+                    runUnlessSuperseded(
+                        List.of(path),
+                        generation,
+                        () -> {
+                          if (!validate(tool, path, entry.getValue(), generation)) {
+                            result.add(path);
+                          }
+                        })));
+      }
     }
+    scheduler.runAll(validations, Runnable::run);
+    return result;
+  }
+
+  private boolean validate(
+      ArtifactTool<?> tool, String path, Artifact artifact, long generation) {
+    return trace.call(
+        "validate",
+        "artifact changed",
+        () -> doValidate(tool, path, artifact, generation),
+        () -> new String[] {"tool", tool.getClass().getName(), "path", path});
   }
 
   @SuppressWarnings("unchecked")
-  private <T extends Artifact> boolean validate(String path, Artifact artifact) {
-    var result = true;
-    for (var tool : Tools.validating(path, artifact)) {
-      var inputs = resolveInputs(tool.validationContext());
-      var diagnostics = new LinkedHashSet<Diagnostic>();
-      var typedTool = (ArtifactTool<T>) tool;
-      var typedArtifact = (T) artifact;
-      typedTool.validate(workspace.root().select(path), typedArtifact, inputs, diagnostics);
-      storeDiagnostics(path, tool, diagnostics);
-      if (result && diagnostics.stream().map(Diagnostic::level).anyMatch(ERROR::equals)) {
-        result = false;
-      }
+  private <T extends Artifact> boolean doValidate(
+      ArtifactTool<?> tool, String path, Artifact artifact, long generation) {
+    var inputs = resolveInputs(tool.validationContext());
+    var diagnostics = new LinkedHashSet<Diagnostic>();
+    var typedTool = (ArtifactTool<T>) tool;
+    var typedArtifact = (T) artifact;
+    var start = System.nanoTime();
+    typedTool.validate(workspace.root().select(path), typedArtifact, inputs, diagnostics);
+    validated(tool, start);
+    storeDiagnostics(path, tool, diagnostics, generation);
+    return diagnostics.stream().map(Diagnostic::level).noneMatch(ERROR::equals);
+  }
+
+  private void submitSlowWork(Object key, long generation, Runnable work) {
+    var replaced = slowLane.submit(key, generations.track(generation, trace.inheriting(work)));
+    if (replaced instanceof Generations.Work superseded) {
+      superseded.drop();
     }
-    return result;
+  }
+
+  private void validated(Tool tool, long start) {
+    var nanos = System.nanoTime() - start;
+    metrics.validated(tool, nanos);
+    slowLane.observed(tool, nanos);
   }
 
   private ResolvedInputs resolveInputs(Set<Input<? extends Artifact>> inputs) {
     var result = new ResolvedInputs();
-    var diagnostics = new ArrayList<Diagnostic>();
     inputs.forEach(
         input -> {
-          var parser = input.format().newParser();
-          result.put(
+          metrics.deferred(input);
+          result.defer(
               input.name(),
-              resourcesMatching(input)
-                  .map(resource -> parser.parse(resource, input.type(), false, diagnostics))
-                  .filter(Objects::nonNull)
-                  .toList());
+              () -> {
+                var artifacts = resolvedInputCache.get(input, this::resolve);
+                metrics.resolved(input, artifacts.size());
+                return artifacts;
+              });
         });
     return result;
   }
 
-  private Resource<?> reportResourceFor(String path) {
-    return workspace.root().select(".km/reports%s".formatted(path));
+  private List<? extends Artifact> resolve(Input<?> input) {
+    return resourcesMatching(input)
+        .map(resource -> parseCached(resource, input))
+        .filter(Objects::nonNull)
+        .toList();
   }
 
-  private void rebuildReportsThatDependOn(Artifact artifact, Resource<?> buildResource) {
-    deleteReports(buildResource);
-    Tools.buildingReportsFor(artifact.getClass())
-        .forEach(
-            tool -> {
-              var inputs = resolveInputs(tool.reportingContext());
-              var diagnostics = new LinkedHashSet<Diagnostic>();
-              var output = buildResource.select(tool.getClass().getName());
-              switch (tool) {
-                case ArtifactTool<?> artifactTool ->
-                    buildReportsFor(artifact, artifactTool, inputs, output, diagnostics);
-                case StandaloneTool standaloneTool ->
-                    standaloneTool.buildReports(inputs, output, diagnostics);
-              }
-            });
-  }
-
-  private void deleteReports(Resource<?> buildResource) {
+  /**
+   * What this orchestrator spends its time on.
+   *
+   * @return the metrics collected since this orchestrator was created
+   */
+  public OrchestratorMetrics metrics() {
+    return metrics.snapshot(workspace.changeQueueStatistics().depth(), backlog.get());
+  }
+
+  /**
+   * Write the current metrics as JSON to {@value METRICS_PATH}.
+   *
+   * @return the resource holding the metrics
+   */
+  public Resource<?> dumpMetrics() {
+    var result = workspace.root().select(METRICS_PATH);
     try {
-      buildResource.delete();
+      result.writeAsString(metrics().toJson());
     } catch (IOException e) {
-      log.error("Failed to delete reports at {}", buildResource.path());
+      log.error("Failed to dump metrics", e);
     }
+    return result;
+  }
+
+  /** Start recording which work each change causes, replacing any earlier recording. */
+  public void startTracing() {
+    trace.start();
+  }
+
+  /**
+   * Stop recording which work each change causes, and write the recording as Chrome trace-event
+   * JSON to {@value TRACE_PATH}.
+   *
+   * @return the resource holding the trace
+   */
+  public Resource<?> stopTracing() {
+    trace.stop();
+    var result = workspace.root().select(TRACE_PATH);
+    try {
+      result.writeAsString(trace.toJson());
+    } catch (IOException e) {
+      log.error("Failed to write trace", e);
+    }
+    return result;
+  }
+
+  /**
+   * Statistics about the cache of parsed artifacts that is shared by all tools.
+   *
+   * @return the cache statistics
+   */
+  public CacheStatistics artifactCacheStatistics() {
+    return artifactCache.statistics();
+  }
+
+  /**
+   * Wait until slow tools are done validating.
+   *
+   * @throws InterruptedException when interrupted while waiting
+   */
+  public void awaitSlowTools() throws InterruptedException {
+    slowLane.awaitIdle();
+  }
+
+  private Resource<?> reportResourceFor(String path) {
+    return workspace.root().select(".km/reports%s".formatted(path));
+  }
+
+  private void rebuildReportsThatDependOn(Map<String, Artifact> artifacts, long generation) {
+    var builds = new ArrayList<Runnable>();
+    var stagedByPath = new LinkedHashMap<String, Resource<?>>();
+    artifacts.forEach(
+        (path, artifact) -> {
+          if (generations.isSuperseded(path, generation)) {
+            // The newer change rebuilds the reports
+            return;
+          }
+          var buildResource = reportStaging.stageFor(generation, path);
+          stagedByPath.put(path, buildResource);
+          Tools.buildingReportsFor(artifact.getClass())
+              .forEach(
+                  tool ->
+                      builds.add(
+                          trace.inheriting(
+                              () ->
+                                  runUnlessSuperseded(
+                                      List.of(path),
+                                      generation,
+                                      () -> buildReports(tool, artifact, buildResource)))));
+        });
+    scheduler.runAll(builds, Runnable::run);
+    stagedByPath.forEach(
+        (path, staged) -> {
+          if (generations.isSuperseded(path, generation)) {
+            reportStaging.discard(staged);
+          } else {
+            reportStaging.publish(staged, reportResourceFor(path));
+          }
+        });
+  }
+
+  private void buildReports(Tool tool, Artifact artifact, Resource<?> buildResource) {
+    trace.run(
+        "rebuild report",
+        "artifact changed",
+        () -> doBuildReports(tool, artifact, buildResource),
+        () -> new String[] {"tool", tool.getClass().getName(), "output", buildResource.path()});
+  }
+
+  private void doBuildReports(Tool tool, Artifact artifact, Resource<?> buildResource) {
+    var inputs = resolveInputs(tool.reportingContext());
+    var diagnostics = new LinkedHashSet<Diagnostic>();
+    var output = buildResource.select(tool.getClass().getName());
+    var start = System.nanoTime();
+    switch (tool) {
+      case ArtifactTool<?> artifactTool ->
+          buildReportsFor(artifact, artifactTool, inputs, output, diagnostics);
+      case StandaloneTool standaloneTool ->
+          standaloneTool.buildReports(inputs, output, diagnostics);
+    }
+    metrics.reported(tool, System.nanoTime() - start);
   }
 
   @SuppressWarnings("unchecked")
@@ -247,123 +618,81 @@ public class ProcessOrchestrator {
                             resourcesMatching(input)
                                 .forEach(
                                     reportResource ->
-                                        artifactTool.buildReportsFor(
+                                        buildStagedReportsFor(
                                             (A) parse(reportResource.path(), input),
+                                            reportResource.path(),
+                                            artifactTool,
                                             inputs,
-                                            reportResourceFor(reportResource.path())
-                                                .select(artifactTool.getClass().getName()),
                                             diagnostics))));
   }
 
-  private Stream<Resource<?>> resourcesMatching(Input<?> input) {
-    return linesOfTextIn(resourceContainingPathsFor(input)).stream().map(workspace.root()::select);
+  private <A extends Artifact> void buildStagedReportsFor(
+      A artifact,
+      String path,
+      ArtifactTool<A> artifactTool,
+      ResolvedInputs inputs,
+      LinkedHashSet<Diagnostic> diagnostics) {
+    var staged = reportStaging.stageSeparately();
+    artifactTool.buildReportsFor(artifact, inputs, staged, diagnostics);
+    reportStaging.publish(
+        staged, reportResourceFor(path).select(artifactTool.getClass().getName()));
   }
 
-  private void storeDiagnostics(String path, Tool tool, Collection<Diagnostic> diagnostics) {
-    storeDiagnostics(path, tool.getClass(), diagnostics);
+  private Stream<Resource<?>> resourcesMatching(Input<?> input) {
+    return inputIndex.pathsFor(input).stream().map(workspace.root()::select);
   }
 
   private void storeDiagnostics(
-      String path, Class<?> toolClass, Collection<Diagnostic> diagnostics) {
-    var diagnosticsResource =
-        workspace.root().select(".km/diagnostics%s/%s.json".formatted(path, toolClass.getName()));
-    try {
-      diagnosticsResource.writeAsString(new JSONObject(serialize(diagnostics)).toString(2));
-    } catch (IOException e) {
-      throw new IllegalStateException("Failed to store diagnostics", e);
-    }
+      String path, Tool tool, Collection<Diagnostic> diagnostics, long generation) {
+    storeDiagnostics(path, tool.getClass(), diagnostics, generation);
   }
 
-  private Map<String, List<Map<String, Object>>> serialize(Collection<Diagnostic> diagnostics) {
-    return Map.of("diagnostics", diagnostics.stream().map(this::serialize).toList());
-  }
-
-  private Map<String, Object> serialize(Diagnostic diagnostic) {
-    var result = new HashMap<String, Object>();
-    result.put("level", diagnostic.level().toString());
-    result.put("message", diagnostic.message());
-    if (diagnostic.location() != null) {
-      result.put("location", diagnostic.location().toString());
-    }
-    if (!diagnostic.suggestions().isEmpty()) {
-      result.put("suggestions", diagnostic.suggestions().stream().map(this::serialize).toList());
-    }
-    return result;
-  }
-
-  private Map<String, String> serialize(Suggestion suggestion) {
-    return Map.of("code", suggestion.code(), "message", suggestion.message());
+  private void storeDiagnostics(
+      String path, Class<?> toolClass, Collection<Diagnostic> diagnostics, long generation) {
+    var tool = toolClass.getName();
+    generations.storeIfCurrent(
+        List.of(path, tool),
+        generation,
+        () -> {
+          // A newer change to the artifact, including its deletion, validates it again
+          if (!generations.isSuperseded(path, generation)) {
+            diagnosticsStore.store(path, tool, diagnostics);
+          }
+        });
   }
 
+  /**
+   * The diagnostics for an artifact, as of the last completed validation. Validations in progress
+   * don't affect the result.
+   *
+   * @param path the path of the artifact
+   * @return the diagnostics
+   */
   public Set<Diagnostic> diagnosticsFor(String path) {
-    var result = new LinkedHashSet<Diagnostic>();
-    workspace
-        .root()
-        .select(".km/diagnostics%s".formatted(path))
-        .children()
-        .forEach(diagnosticResource -> result.addAll(deserializeFrom(diagnosticResource)));
-    return result;
-  }
-
-  @SuppressWarnings("unchecked")
-  private Collection<Diagnostic> deserializeFrom(Resource<?> diagnosticResource) {
-    try (var input = diagnosticResource.readFrom()) {
-      var diagnostics = (Map<String, List<Map<String, Object>>>) mapper.readValue(input, Map.class);
-      return diagnostics.get("diagnostics").stream().map(this::deserialize).toList();
-    } catch (Exception e) {
-      return emptyList();
-    }
-  }
-
-  @SuppressWarnings("unchecked")
-  private Diagnostic deserialize(Map<String, Object> diagnostic) {
-    var level = Level.valueOf((String) diagnostic.get("level"));
-    var message = diagnostic.get("message").toString();
-    var location =
-        Optional.ofNullable(diagnostic.get("location"))
-            .map(String.class::cast)
-            .map(path -> path.split("/"))
-            .map(Location::new)
-            .orElse(null);
-    var suggestions =
-        Optional.ofNullable(diagnostic.get("suggestions")).map(Collection.class::cast).stream()
-            .flatMap(Collection::stream)
-            .map(suggestion -> deserializeSuggestion((Map<String, String>) suggestion))
-            .toList();
-    return new Diagnostic(level, message, location, suggestions);
-  }
-
-  private Suggestion deserializeSuggestion(Map<String, String> suggestion) {
-    return new Suggestion(suggestion.get("code"), suggestion.get("message"));
+    return diagnosticsStore.published().diagnosticsFor(path);
   }
 
   public Set<Diagnostic> diagnostics() {
-    return workspace.root().matching(".km/diagnostics", "json").stream()
-        .map(this::deserializeFrom)
-        .flatMap(Collection::stream)
-        .collect(toSet());
+    return diagnosticsStore.published().all();
   }
 
-  public Set<Diagnostic> diagnosticsWithSuggestions() {
-    return diagnostics().stream()
-        .filter(Diagnostic::hasSuggestion)
-        .collect(toCollection(TreeSet::new));
+  /**
+   * All diagnostics of a given level.
+   *
+   * @param level the level of the diagnostics
+   * @return the diagnostics
+   */
+  public Set<Diagnostic> diagnostics(Level level) {
+    return diagnosticsStore.published().diagnostics(level);
   }
 
-  private synchronized void artifactDeleted(String path) {
-    if (isInternalResource(path)) {
-      return;
-    }
-    removeFromInputs(path);
-    deleteInternalResourcesReferencing(path);
-    revalidateArtifactsThatDependOn(path);
+  public Set<Diagnostic> diagnosticsWithSuggestions() {
+    return new TreeSet<>(diagnosticsStore.published().withSuggestions());
   }
 
   private void deleteInternalResourcesReferencing(String path) {
-    Stream.of("diagnostics", "reports")
-        .map(dir -> ".km/%s%s".formatted(dir, path))
-        .map(workspace.root()::select)
-        .forEach(this::deleteIgnoreExceptions);
+    diagnosticsStore.removeAll(path);
+    deleteIgnoreExceptions(reportResourceFor(path));
   }
 
   private void deleteIgnoreExceptions(Resource<?> resource) {
@@ -374,73 +703,145 @@ public class ProcessOrchestrator {
     }
   }
 
-  private void removeFromInputs(String path) {
-    Tools.all()
-        .map(Tool::allInputs)
-        .flatMap(Collection::stream)
-        .filter(input -> input.matches(path))
-        .forEach(input -> removeInputPath(input, path));
+  /**
+   * The validations to run when the artifact at a given path changes or is deleted.
+   *
+   * @param path the path to the artifact
+   * @return the validations to run, in dependency order
+   */
+  public Set<ValidationTask> validationsAffectedBy(String path) {
+    return validationsAffectedBy(path, emptySet());
   }
 
-  private void removeInputPath(Input<?> input, String path) {
-    updateInputPaths(input, path, Collection::remove);
+  private Set<ValidationTask> validationsAffectedBy(String path, Set<String> previousReferrers) {
+    var referrers =
+        Optional.of(referenceIndex)
+            .filter(ReferenceIndex::isComplete)
+            .map(
+                index -> {
+                  Set<String> result = new TreeSet<>(previousReferrers);
+                  result.addAll(index.referrersOfArtifactAt(path));
+                  return result;
+                });
+    return dependencyGraph.validationsAffectedBy(path, this::pathsToValidateFor, referrers);
   }
 
-  private void revalidateArtifactsThatDependOn(String path) {
-    Tools.all()
-        .filter(tool -> tool.validationContext().stream().anyMatch(input -> input.matches(path)))
-        .forEach(tool -> validateDependent(tool, path));
+  /**
+   * The paths of the artifacts that link to a target.
+   *
+   * @param target the target of the links
+   * @return the paths of the referring artifacts
+   */
+  public Set<String> pathsReferencing(Link target) {
+    return referenceIndex.referrersOf(target);
+  }
+
+  private int revalidateArtifactsThatDependOn(
+      Collection<String> sources,
+      Map<String, Set<String>> previousReferrers,
+      Set<String> handled,
+      long generation) {
+    var triggersByTool = new LinkedHashMap<Tool, Set<String>>();
+    var pathsByTool = new HashMap<Tool, Set<String>>();
+    for (var source : sources) {
+      validationsAffectedBy(source, previousReferrers.getOrDefault(source, emptySet())).stream()
+          // The changed artifacts are either validated already or deleted
+          .filter(task -> task.tool() instanceof StandaloneTool || !handled.contains(task.path()))
+          .forEach(
+              task -> {
+                triggersByTool
+                    .computeIfAbsent(task.tool(), ignored -> new LinkedHashSet<>())
+                    .add(source);
+                pathsByTool
+                    .computeIfAbsent(task.tool(), ignored -> new LinkedHashSet<>())
+                    .add(task.path());
+              });
+    }
+    var validations = new ArrayList<Runnable>();
+    triggersByTool.forEach(
+        (tool, triggers) -> {
+          var paths = pathsByTool.get(tool);
+          Runnable validation =
+              () ->
+                  runUnlessSuperseded(
+                      triggers,
+                      generation,
+                      () ->
+                          trace.run(
+                              "revalidate dependent",
+                              "depends on changed artifact",
+                              () -> validateDependent(tool, triggers, paths, generation),
+                              () ->
+                                  new String[] {
+                                    "tool",
+                                    tool.getClass().getName(),
+                                    "paths",
+                                    paths.toString(),
+                                    "triggers",
+                                    triggers.toString()
+                                  }));
+          if (slowLane.isSlow(tool)) {
+            submitSlowWork(List.of(tool, triggers), generation, validation);
+          } else {
+            validations.add(trace.inheriting(validation));
+          }
+        });
+    scheduler.runAll(validations, Runnable::run);
+    return pathsByTool.values().stream().mapToInt(Set::size).sum();
   }
 
-  private void validateDependent(Tool tool, String path) {
+  private void validateDependent(
+      Tool tool, Set<String> triggers, Collection<String> paths, long generation) {
     var resolvedInputs = resolveInputs(tool.validationContext());
     switch (tool) {
-      case ArtifactTool<?> artifactTool -> validateDependent(path, artifactTool, resolvedInputs);
-      case StandaloneTool standaloneTool -> {
-        var diagnostics = new LinkedHashSet<Diagnostic>();
-        standaloneTool.validate(resolvedInputs, workspace.root(), diagnostics);
-        clearStaleDiagnosticsFor(standaloneTool);
-        storeDiagnostics(path, tool, diagnostics);
+      case ArtifactTool<?> artifactTool -> {
+        triggers.stream()
+            .filter(not(artifactTool::validates))
+            .forEach(trigger -> clearStaleDiagnosticsAt(trigger, artifactTool, generation));
+        for (var path : paths) {
+          Cancellation.checkpoint();
+          validateArtifact(artifactTool, path, resolvedInputs, generation);
+        }
       }
+      case StandaloneTool standaloneTool ->
+          validateStandalone(
+              standaloneTool, triggers.iterator().next(), resolvedInputs, generation);
     }
   }
 
-  private void clearStaleDiagnosticsFor(StandaloneTool tool) {
-    var toolName = tool.getClass().getName();
-    workspace.root().matching(".km/diagnostics", "json").stream()
-        .filter(r -> r.name().equals("%s.json".formatted(toolName)))
-        .forEach(this::deleteIgnoreExceptions);
+  private void validateArtifact(
+      ArtifactTool<?> tool, String path, ResolvedInputs inputs, long generation) {
+    var diagnostics = new LinkedHashSet<Diagnostic>();
+    var start = System.nanoTime();
+    tool.validate(workspace.root().select(path), inputs, diagnostics);
+    validated(tool, start);
+    storeDiagnostics(path, tool, diagnostics, generation);
   }
 
-  private void validateDependent(
-      String path, ArtifactTool<?> artifactTool, ResolvedInputs resolvedInputs) {
-    if (artifactTool.validationTargets().stream().anyMatch(input -> input.matches(path))) {
-      var diagnostics = new LinkedHashSet<Diagnostic>();
-      artifactTool.validate(workspace.root().select(path), resolvedInputs, diagnostics);
-      storeDiagnostics(path, artifactTool, diagnostics);
-    } else {
-      clearStaleDiagnosticsAt(path, artifactTool);
-      pathsToValidateFor(artifactTool)
-          .forEach(
-              filePath -> {
-                var diagnostics = new LinkedHashSet<Diagnostic>();
-                artifactTool.validate(
-                    workspace.root().select(filePath), resolvedInputs, diagnostics);
-                storeDiagnostics(filePath, artifactTool, diagnostics);
-              });
-    }
+  private void validateStandalone(
+      StandaloneTool tool, String path, ResolvedInputs inputs, long generation) {
+    var diagnostics = new LinkedHashSet<Diagnostic>();
+    var start = System.nanoTime();
+    tool.validate(inputs, workspace.root(), diagnostics);
+    validated(tool, start);
+    // Changes to different paths may validate the same standalone tool concurrently
+    generations.storeIfCurrent(
+        tool,
+        generation,
+        () -> {
+          clearStaleDiagnosticsFor(tool);
+          diagnosticsStore.store(path, tool.getClass().getName(), diagnostics);
+        });
   }
 
-  private void clearStaleDiagnosticsAt(String path, Tool tool) {
-    var diagnosticsResource =
-        workspace
-            .root()
-            .select(".km/diagnostics%s/%s.json".formatted(path, tool.getClass().getName()));
-    try {
-      diagnosticsResource.delete();
-    } catch (IOException ignored) {
-      // Ignore if file doesn't exist
-    }
+  private void clearStaleDiagnosticsFor(StandaloneTool tool) {
+    diagnosticsStore.removeTool(tool.getClass().getName());
+  }
+
+  private void clearStaleDiagnosticsAt(String path, Tool tool, long generation) {
+    var toolName = tool.getClass().getName();
+    generations.storeIfCurrent(
+        List.of(path, toolName), generation, () -> diagnosticsStore.remove(path, toolName));
   }
 
   private Collection<String> pathsToValidateFor(ArtifactTool<?> artifactTool) {
@@ -458,13 +859,7 @@ public class ProcessOrchestrator {
   }
 
   private Stream<String> pathsWithDiagnosticsFor(ArtifactTool<?> tool) {
-    var toolName = tool.getClass().getName();
-    var diagnosticsPrefix = "/.km/diagnostics";
-    return workspace.root().matching(".km/diagnostics", "json").stream()
-        .map(Resource::path)
-        .filter(path -> path.endsWith("/%s.json".formatted(toolName)))
-        .map(path -> path.substring(diagnosticsPrefix.length()))
-        .map(path -> path.substring(0, path.lastIndexOf('/')));
+    return diagnosticsStore.pathsWithDiagnosticsFor(tool.getClass().getName()).stream();
   }
 
   private void registerArtifactDefinitions() {
@@ -481,6 +876,17 @@ public class ProcessOrchestrator {
         .forEach(workspace::registerArtifactDefinition);
   }
 
+  /**
+   * Whether the current thread may wait for validation on other threads. When it may not, for
+   * instance because it holds a lock that those threads need to write, validation runs on the
+   * current thread.
+   *
+   * @return whether validation may run in parallel
+   */
+  protected boolean mayWaitForOtherThreads() {
+    return true;
+  }
+
   protected void validateArtifactsInBackground() {
     var thread = new Thread(this::validateExistingArtifacts);
     thread.setDaemon(true);
@@ -488,57 +894,153 @@ public class ProcessOrchestrator {
   }
 
   protected void validateExistingArtifacts() {
-    outOfDateArtifacts().forEach(this::updateOutOfDateArtifact);
+    catchUp(outOfDateArtifacts(), this::updateOutOfDateArtifact);
+  }
+
+  /**
+   * Update out-of-date artifacts one level of dependency depth at a time, so artifacts go before
+   * their dependents, except for artifacts that have {@linkplain #focus(String) focus}. Catch-up
+   * listeners hear about the progress of updating them.
+   *
+   * @param artifacts the artifacts to update
+   * @param update how to update an artifact
+   */
+  protected void catchUp(
+      Collection<OutOfDateArtifact> artifacts, Consumer<OutOfDateArtifact> update) {
+    catchUp.start(artifacts.size());
+    catchUpQueue.addAll(artifacts);
+    scheduler.runWorkers(() -> catchUpQueue.drain(update));
+  }
+
+  private int depthOf(OutOfDateArtifact artifact) {
+    return dependencyGraph.depthOf(artifact.path());
+  }
+
+  /**
+   * Register a listener for the progress of validating artifacts that changed while the workspace
+   * wasn't watched.
+   *
+   * @param listener the listener to register
+   */
+  public void registerCatchUpListener(CatchUpListener listener) {
+    catchUp.register(listener);
+  }
+
+  public CatchUpProgress catchUpProgress() {
+    return catchUp.progress();
   }
 
+  /**
+   * Find the artifacts that changed while the workspace wasn't watched.
+   *
+   * @return the out-of-date artifacts, in order of dependency depth
+   */
   protected List<OutOfDateArtifact> outOfDateArtifacts() {
-    return workspace.root().matching(".km/" + INPUTS, PATHS).stream()
-        .map(this::linesOfTextIn)
-        .flatMap(Collection::stream)
-        .toList()
-        .stream()
-        .map(workspace.root()::select)
-        .filter(Objects::nonNull)
-        .flatMap(this::checkOutOfDate)
+    if (inputIndexLoadedFromSnapshot) {
+      // The snapshot may miss changes made while we weren't watching
+      inputIndexLoadedFromSnapshot = false;
+      cacheInputs();
+    }
+    indexReferences();
+    removeArtifactsDeletedWhileNotWatching();
+    return inputIndex
+        .allPaths()
+        .filter(this::isOutOfDate)
+        .map(OutOfDateArtifact::new)
+        .sorted(comparing(this::depthOf).thenComparing(OutOfDateArtifact::path))
         .toList();
   }
 
-  private Stream<OutOfDateArtifact> checkOutOfDate(Resource<?> artifact) {
-    return Stream.of(artifact)
-        .filter(a -> isBefore(lastValidated(a.path()), a.lastModifiedAt()))
-        .map(Resource::path)
-        .map(OutOfDateArtifact::new);
+  private void removeArtifactsDeletedWhileNotWatching() {
+    var deleted = manifest.paths();
+    deleted.removeAll(inputIndex.allPaths().collect(toSet()));
+    processChanges(Map.of(), deleted, "deleted while not watching");
+  }
+
+  private boolean isOutOfDate(String path) {
+    var resource = workspace.root().select(path);
+    if (resource == null) {
+      return false;
+    }
+    var tools = toolsValidating(path);
+    if (!manifest.isOutOfDate(resource, tools)) {
+      return false;
+    }
+    if (manifest.contains(path)) {
+      return true;
+    }
+    // Fall back to the time of the last validation for workspaces without a manifest
+    var result = isBefore(lastValidated(path), resource.lastModifiedAt());
+    if (!result) {
+      manifest.validated(resource, tools, manifest.nextGeneration());
+    }
+    return result;
   }
 
   private LocalDateTime lastValidated(String path) {
-    return workspace.root().matching("/.km/diagnostics%s".formatted(path), "json").stream()
-        .map(Resource::lastModifiedAt)
-        .min(LocalDateTime::compareTo)
-        .orElse(LONG_AGO);
+    return diagnosticsStore.lastValidated(path).orElse(LONG_AGO);
   }
 
   private boolean isBefore(LocalDateTime dt1, LocalDateTime dt2) {
     return dt1 == null || dt2 == null || dt1.isBefore(dt2);
   }
 
+  private void indexReferences() {
+    if (referenceIndex.isComplete()) {
+      return;
+    }
+    inputIndex
+        .allPaths()
+        .forEach(path -> parse(path).ifPresent(artifact -> referenceIndex.update(path, artifact)));
+    referenceIndex.markComplete();
+  }
+
   protected void updateOutOfDateArtifact(OutOfDateArtifact outOfDate) {
     var path = outOfDate.path();
-    Tools.all()
-        .map(Tool::allInputs)
-        .flatMap(Collection::stream)
-        .distinct()
-        .filter(input -> input.matches(path))
+    try {
+      parse(path)
+          .ifPresent(artifact -> processChanges(Map.of(path, artifact), emptyList(), "catch up"));
+    } finally {
+      catchUp.completed();
+    }
+  }
+
+  private Optional<Artifact> parse(String path) {
+    return dependencyGraph.inputsMatching(path).stream()
+        .filter(input -> input.format() != null)
         .map(input -> parse(path, input))
         .filter(Objects::nonNull)
-        .findFirst()
-        .ifPresent(artifact -> artifactChanged(path, artifact));
+        .findFirst();
+  }
+
+  private Artifact parse(String path, Input<?> input) {
+    return parseCached(workspace.root().select(path), input);
   }
 
-  private Artifact parse(String path, Input<? extends Artifact> input) {
-    return input
-        .format()
-        .newParser()
-        .parse(workspace.root().select(path), input.type(), false, new LinkedHashSet<>());
+  private <T extends Artifact> T parseCached(Resource<?> resource, Input<T> input) {
+    return artifactCache.get(resource, input.type(), r -> parse(r, input));
+  }
+
+  private <T extends Artifact> T parse(Resource<?> resource, Input<T> input) {
+    return trace.call(
+        "parse",
+        "read input",
+        () -> doParse(resource, input),
+        () -> new String[] {"input", input.name(), "path", resource.path()});
+  }
+
+  private <T extends Artifact> T doParse(Resource<?> resource, Input<T> input) {
+    var format = input.format();
+    try {
+      var content = resource.readAsBuffer();
+      try {
+        return format.newParser().parse(resource.name(), content, input.type(), false);
+      } finally {
+        metrics.parsed(format, content.limit());
+      }
+    } catch (Exception e) {
+      return null;
+    }
   }
 
   public Resource<?> mainReportFor(String path) {
@@ -561,12 +1063,23 @@ public class ProcessOrchestrator {
     return result.children().getFirst();
   }
 
-  @SuppressWarnings("unchecked")
-  public synchronized AppliedSuggestion applySuggestion(
-      Resource<?> resource, String code, Location location) {
+  public AppliedSuggestion applySuggestion(Resource<?> resource, String code, Location location) {
     if (resource == null) {
       return none();
     }
+    // Process all artifacts created or changed by the suggestion together
+    var result =
+        workspace.batchChanges(
+            () ->
+                scheduler.inOrderFor(
+                    resource.path(), () -> doApplySuggestion(resource, code, location)));
+    diagnosticsStore.publish();
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private AppliedSuggestion doApplySuggestion(
+      Resource<?> resource, String code, Location location) {
     for (var tool :
         Tools.all()
             .filter(ArtifactTool.class::isInstance)
@@ -575,7 +1088,8 @@ public class ProcessOrchestrator {
             .toList()) {
       var inputs = resolveInputs(tool.validationContext());
       var input = findMatchingInput(tool, resource.path());
-      var artifact = parse(resource.path(), input);
+      // Parse afresh, since applying the suggestion may change the artifact
+      var artifact = parse(resource, input);
       var result = tool.applySuggestion(artifact, code, location, inputs, resource);
       if (!result.createdOrChanged().isEmpty()) {
         revalidateArtifactTool(tool);
@@ -599,21 +1113,23 @@ public class ProcessOrchestrator {
 
   private void revalidateArtifactTool(ArtifactTool<?> tool) {
     var inputs = resolveInputs(tool.validationContext());
-    pathsToValidateFor(tool)
-        .forEach(
-            filePath -> {
-              var diagnostics = new LinkedHashSet<Diagnostic>();
-              tool.validate(workspace.root().select(filePath), inputs, diagnostics);
-              storeDiagnostics(filePath, tool, diagnostics);
-            });
+    var generation = generations.begin(manifest::nextGeneration);
+    try {
+      pathsToValidateFor(tool)
+          .forEach(filePath -> validateArtifact(tool, filePath, inputs, generation));
+    } finally {
+      generations.end(generation);
+    }
   }
 
   private void revalidateStandaloneTool(StandaloneTool tool, Resource<?> resource) {
-    var inputs = resolveInputs(tool.validationContext());
-    var diagnostics = new LinkedHashSet<Diagnostic>();
-    tool.validate(inputs, workspace.root(), diagnostics);
-    clearStaleDiagnosticsFor(tool);
-    storeDiagnostics(resource.path(), tool, diagnostics);
+    var generation = generations.begin(manifest::nextGeneration);
+    try {
+      validateStandalone(
+          tool, resource.path(), resolveInputs(tool.validationContext()), generation);
+    } finally {
+      generations.end(generation);
+    }
   }
 
   private Input<? extends Artifact> findMatchingInput(ArtifactTool<?> tool, String path) {
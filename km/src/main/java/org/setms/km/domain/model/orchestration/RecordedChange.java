@@ -0,0 +1,41 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.Base64;
+import org.json.JSONObject;
+
+/**
+ * A change to a workspace, as recorded by a {@linkplain ChangeRecorder change recorder}.
+ *
+ * @param at when the change happened, in nanoseconds since recording started
+ * @param operation what happened to the resource
+ * @param path the path of the resource
+ * @param content the content of the resource after the change, or {@code null} if it was deleted
+ */
+public record RecordedChange(long at, Operation operation, String path, byte[] content) {
+
+  static RecordedChange fromJson(String line) {
+    var json = new JSONObject(line);
+    var operation = Operation.valueOf(json.getString("operation"));
+    return new RecordedChange(
+        json.getLong("at"),
+        operation,
+        json.getString("path"),
+        json.has("content") ? Base64.getDecoder().decode(json.getString("content")) : null);
+  }
+
+  String toJson() {
+    var result = new JSONObject();
+    result.put("at", at);
+    result.put("operation", operation.name());
+    result.put("path", path);
+    if (content != null) {
+      result.put("content", Base64.getEncoder().encodeToString(content));
+    }
+    return result.toString();
+  }
+
+  public enum Operation {
+    CHANGED,
+    DELETED
+  }
+}
@@ -0,0 +1,118 @@
+package org.setms.km.domain.model.orchestration;
+
+import static java.util.Collections.emptySet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.setms.km.domain.model.artifact.Artifact;
+import org.setms.km.domain.model.artifact.Link;
+import org.setms.km.domain.model.artifact.Links;
+
+/**
+ * Reverse index from {@linkplain Link link} targets to the paths of the artifacts that link to
+ * them.
+ */
+class ReferenceIndex {
+
+  private final Map<Link, Set<String>> referrersByTarget = new ConcurrentHashMap<>();
+  private final Map<String, Set<Link>> targetsByPath = new ConcurrentHashMap<>();
+  private final Map<String, Link> identityByPath = new ConcurrentHashMap<>();
+  private volatile boolean complete;
+
+  synchronized void update(String path, Artifact artifact) {
+    remove(path);
+    identityByPath.put(path, artifact.linkTo());
+    var targets = Links.in(artifact);
+    targetsByPath.put(path, targets);
+    targets.forEach(
+        target ->
+            referrersByTarget
+                .computeIfAbsent(target, ignored -> ConcurrentHashMap.newKeySet())
+                .add(path));
+  }
+
+  synchronized void remove(String path) {
+    identityByPath.remove(path);
+    Optional.ofNullable(targetsByPath.remove(path)).stream()
+        .flatMap(Collection::stream)
+        .forEach(target -> removeReferrer(target, path));
+  }
+
+  private void removeReferrer(Link target, String path) {
+    referrersByTarget.computeIfPresent(
+        target,
+        (ignored, referrers) -> {
+          referrers.remove(path);
+          return referrers.isEmpty() ? null : referrers;
+        });
+  }
+
+  /**
+   * The paths of the artifacts that link to a target. Links without a type are considered to
+   * point to any target with the same ID.
+   *
+   * @param target the target of the links
+   * @return the paths of the referring artifacts
+   */
+  Set<String> referrersOf(Link target) {
+    var typed = referrersByTarget.getOrDefault(target, emptySet());
+    if (target.getType() == null) {
+      return Collections.unmodifiableSet(typed);
+    }
+    var untyped = referrersByTarget.getOrDefault(new Link(null, target.getId()), emptySet());
+    if (untyped.isEmpty()) {
+      return Collections.unmodifiableSet(typed);
+    }
+    var result = new TreeSet<>(typed);
+    result.addAll(untyped);
+    return result;
+  }
+
+  /**
+   * The paths of the artifacts that link to the artifact at a given path.
+   *
+   * @param path the path of the target artifact
+   * @return the paths of the referring artifacts
+   */
+  Set<String> referrersOfArtifactAt(String path) {
+    return Optional.ofNullable(identityByPath.get(path))
+        .map(this::referrersOf)
+        .orElseGet(Collections::emptySet);
+  }
+
+  /**
+   * The paths of the artifacts that the artifact at a given path links to. This looks at all
+   * indexed artifacts, so it's meant for occasional use.
+   *
+   * @param path the path of the referring artifact
+   * @return the paths of the target artifacts
+   */
+  Set<String> targetsOfArtifactAt(String path) {
+    var targets = targetsByPath.getOrDefault(path, emptySet());
+    var result = new TreeSet<String>();
+    if (!targets.isEmpty()) {
+      identityByPath.forEach(
+          (candidate, identity) -> {
+            if (targets.contains(identity)
+                || targets.contains(new Link(null, identity.getId()))) {
+              result.add(candidate);
+            }
+          });
+    }
+    return result;
+  }
+
+  /**
+   * Whether all artifacts in the workspace were indexed. Before that, the index may miss
+   * referrers.
+   *
+   * @return whether the index is complete
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  void markComplete() {
+    complete = true;
+  }
+}
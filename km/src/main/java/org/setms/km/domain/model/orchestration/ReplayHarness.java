@@ -0,0 +1,98 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.setms.km.domain.model.workspace.Workspace;
+
+/**
+ * Feeds {@linkplain ChangeRecorder recorded} changes into a fresh workspace as fast as possible,
+ * and measures how fast a process orchestrator keeps up. With the same changes and an in-memory
+ * workspace, reports of different versions of the code can be compared. Percentiles are exact,
+ * computed from the time each change took, so that small regressions don't hide in a histogram
+ * bucket.
+ */
+public class ReplayHarness {
+
+  private final Supplier<? extends Workspace<?>> workspaceFactory;
+  private final Function<Workspace<?>, ? extends ProcessOrchestrator> orchestratorFactory;
+
+  /**
+   * Create a replay harness.
+   *
+   * @param workspaceFactory how to create an empty workspace
+   * @param orchestratorFactory how to create the process orchestrator for a workspace
+   */
+  public ReplayHarness(
+      Supplier<? extends Workspace<?>> workspaceFactory,
+      Function<Workspace<?>, ? extends ProcessOrchestrator> orchestratorFactory) {
+    this.workspaceFactory = workspaceFactory;
+    this.orchestratorFactory = orchestratorFactory;
+  }
+
+  /**
+   * Replay changes.
+   *
+   * @param changes the changes to replay
+   * @return how fast the process orchestrator processed the changes
+   * @throws IOException when a change can't be made
+   * @throws InterruptedException when interrupted while waiting for slow tools
+   */
+  public ReplayReport replay(List<RecordedChange> changes)
+      throws IOException, InterruptedException {
+    Workspace<?> workspace = workspaceFactory.get();
+    var processOrchestrator = orchestratorFactory.apply(workspace);
+    var timeToDiagnostics = new long[changes.size()];
+    var startedAt = System.nanoTime();
+    for (var i = 0; i < timeToDiagnostics.length; i++) {
+      var changeStartedAt = System.nanoTime();
+      apply(changes.get(i), workspace);
+      processOrchestrator.awaitSlowTools();
+      timeToDiagnostics[i] = System.nanoTime() - changeStartedAt;
+    }
+    var elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+    var parses =
+        processOrchestrator.metrics().parsesByFormat().values().stream()
+            .mapToLong(ParseStatistics::count)
+            .sum();
+    workspace.close();
+    Arrays.sort(timeToDiagnostics);
+    return new ReplayReport(
+        changes.size(),
+        elapsed,
+        percentile(timeToDiagnostics, 50),
+        percentile(timeToDiagnostics, 99),
+        parses);
+  }
+
+  /**
+   * The nearest-rank percentile of sorted values.
+   *
+   * @param sorted the values, in ascending order
+   * @param percentile the percentile, like 99
+   * @return the smallest value that at least the given percentage of values don't exceed, or 0
+   *     when there are no values
+   */
+  static long percentile(long[] sorted, int percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    var rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private void apply(RecordedChange change, Workspace<?> workspace) throws IOException {
+    var resource = workspace.root().select(change.path());
+    switch (change.operation()) {
+      case CHANGED -> {
+        try (var output = resource.writeTo()) {
+          output.write(change.content());
+        }
+      }
+      case DELETED -> resource.delete();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.json.JSONObject;
+
+/**
+ * How fast a process orchestrator processed {@linkplain ReplayHarness replayed} changes.
+ *
+ * @param changes the number of replayed changes
+ * @param elapsed how long replaying took
+ * @param timeToDiagnosticsP50 the median time from making a change until its diagnostics were
+ *     published, in nanoseconds
+ * @param timeToDiagnosticsP99 the 99th percentile of the time from making a change until its
+ *     diagnostics were published, in nanoseconds
+ * @param parses the number of artifacts the orchestrator parsed
+ */
+public record ReplayReport(
+    int changes,
+    Duration elapsed,
+    long timeToDiagnosticsP50,
+    long timeToDiagnosticsP99,
+    long parses) {
+
+  public double changesPerSecond() {
+    return elapsed.isZero() ? 0 : changes * 1_000_000_000.0 / elapsed.toNanos();
+  }
+
+  /**
+   * Compare with an earlier replay of the same changes, for use as a regression gate.
+   *
+   * @param baseline the report of the earlier replay
+   * @param tolerance the fraction by which this replay may be worse than the baseline, like 0.1
+   * @return descriptions of where this replay is worse than the baseline by more than the tolerance
+   */
+  public List<String> regressionsComparedTo(ReplayReport baseline, double tolerance) {
+    var result = new ArrayList<String>();
+    var allowed = 1 + tolerance;
+    if (changesPerSecond() * allowed < baseline.changesPerSecond()) {
+      result.add(
+          "Changes per second dropped from %.1f to %.1f"
+              .formatted(baseline.changesPerSecond(), changesPerSecond()));
+    }
+    if (timeToDiagnosticsP50 > baseline.timeToDiagnosticsP50() * allowed) {
+      result.add(
+          "Median time to diagnostics rose from %s to %s"
+              .formatted(
+                  Duration.ofNanos(baseline.timeToDiagnosticsP50()),
+                  Duration.ofNanos(timeToDiagnosticsP50)));
+    }
+    if (timeToDiagnosticsP99 > baseline.timeToDiagnosticsP99() * allowed) {
+      result.add(
+          "99th percentile time to diagnostics rose from %s to %s"
+              .formatted(
+                  Duration.ofNanos(baseline.timeToDiagnosticsP99()),
+                  Duration.ofNanos(timeToDiagnosticsP99)));
+    }
+    if (parses > baseline.parses() * allowed) {
+      result.add("Parses rose from %d to %d".formatted(baseline.parses(), parses));
+    }
+    return result;
+  }
+
+  public String toJson() {
+    var result = new LinkedHashMap<String, Object>();
+    result.put("changes", changes);
+    result.put("elapsed", elapsed.toNanos());
+    result.put("changesPerSecond", changesPerSecond());
+    result.put("timeToDiagnosticsP50", timeToDiagnosticsP50);
+    result.put("timeToDiagnosticsP99", timeToDiagnosticsP99);
+    result.put("parses", parses);
+    return new JSONObject(result).toString(2);
+  }
+
+  /**
+   * Read a report written by {@linkplain #toJson()}.
+   *
+   * @param json the report as JSON
+   * @return the report
+   */
+  public static ReplayReport fromJson(String json) {
+    var object = new JSONObject(json);
+    return new ReplayReport(
+        object.getInt("changes"),
+        Duration.ofNanos(object.getLong("elapsed")),
+        object.getLong("timeToDiagnosticsP50"),
+        object.getLong("timeToDiagnosticsP99"),
+        object.getLong("parses"));
+  }
+}
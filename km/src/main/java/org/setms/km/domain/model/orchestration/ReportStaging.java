@@ -0,0 +1,62 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.setms.km.domain.model.workspace.Resource;
+
+/**
+ * Reports are built in a staging area first and then published over the previous reports, so that
+ * readers like an HTML preview never see a half-built report or a mix of old and new reports.
+ */
+@Slf4j
+class ReportStaging {
+
+  static final String PATH = ".km/staging";
+
+  private final Resource<?> root;
+  private final AtomicLong separateStagings = new AtomicLong();
+
+  ReportStaging(Resource<?> root) {
+    this.root = root;
+    // Left over from work that was interrupted
+    discard(root.select(PATH));
+  }
+
+  Resource<?> stageFor(long generation, String path) {
+    return root.select("%s/%d%s".formatted(PATH, generation, path));
+  }
+
+  /**
+   * Stage reports that are built for another artifact than the one that changed, apart from all
+   * other staged reports.
+   *
+   * @return where to build the reports
+   */
+  Resource<?> stageSeparately() {
+    return root.select("%s/separate/%d".formatted(PATH, separateStagings.incrementAndGet()));
+  }
+
+  /**
+   * Replace reports with staged ones. Reports that weren't staged are removed. When the reports
+   * can't be replaced, the staged ones are kept, so they can be inspected.
+   *
+   * @param staged the staged reports
+   * @param target where to publish the reports
+   */
+  void publish(Resource<?> staged, Resource<?> target) {
+    try {
+      target.replaceWith(staged);
+    } catch (IOException e) {
+      log.error("Failed to publish reports at {}, staged at {}", target.path(), staged.path(), e);
+    }
+  }
+
+  void discard(Resource<?> staged) {
+    try {
+      staged.delete();
+    } catch (IOException e) {
+      log.warn("Failed to discard staged reports at {}", staged.path(), e);
+    }
+  }
+}
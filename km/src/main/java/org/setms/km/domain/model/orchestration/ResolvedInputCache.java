@@ -0,0 +1,50 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.setms.km.domain.model.artifact.Artifact;
+import org.setms.km.domain.model.tool.Input;
+
+/**
+ * The artifacts resolved for each input, shared immutably by all tools until an artifact that
+ * matches the input changes. This way, an input is resolved at most once per change, no matter how
+ * many tools use it.
+ */
+class ResolvedInputCache {
+
+  private final Map<Input<?>, List<Artifact>> artifactsByInput = new ConcurrentHashMap<>();
+  private long version;
+
+  List<Artifact> get(Input<?> input, Function<Input<?>, List<? extends Artifact>> resolver) {
+    var result = artifactsByInput.get(input);
+    if (result != null) {
+      return result;
+    }
+    var resolvedInVersion = currentVersion();
+    List<Artifact> resolved = List.copyOf(resolver.apply(input));
+    synchronized (this) {
+      // Don't cache what was resolved before a matching artifact changed
+      if (version == resolvedInVersion) {
+        artifactsByInput.putIfAbsent(input, resolved);
+      }
+    }
+    return resolved;
+  }
+
+  private synchronized long currentVersion() {
+    return version;
+  }
+
+  synchronized void invalidate(Collection<String> paths) {
+    version++;
+    artifactsByInput.keySet().removeIf(input -> paths.stream().anyMatch(input::matches));
+  }
+
+  synchronized void clear() {
+    version++;
+    artifactsByInput.clear();
+  }
+}
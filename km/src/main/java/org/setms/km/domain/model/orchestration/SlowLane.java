@@ -0,0 +1,145 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.setms.km.domain.model.tool.Tool;
+
+/**
+ * Runs the work of slow tools in the background, so that it doesn't hold up the feedback of other
+ * tools. Work with the same key is coalesced: when work arrives while earlier work with that key
+ * is still waiting, only the latest work runs. Tools are slow when they say so, or when the median
+ * of their recent validation times exceeds a threshold. Tools that speed up again stop being slow.
+ */
+@Slf4j
+class SlowLane {
+
+  static final int DEFAULT_PARALLELISM = 1;
+  static final Duration DEFAULT_THRESHOLD = Duration.ofMillis(500);
+  private static final int MIN_SAMPLES = 3;
+  private static final int MAX_SAMPLES = 9;
+
+  private final Set<String> learnedSlowTools = ConcurrentHashMap.newKeySet();
+  private final Map<String, Deque<Long>> recentByTool = new ConcurrentHashMap<>();
+  private final Map<Object, Runnable> pendingByKey = new LinkedHashMap<>();
+  private final Set<Object> running = new HashSet<>();
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Semaphore permits;
+  private final long thresholdNanos;
+  private final Runnable afterEach;
+  private int active;
+
+  /**
+   * Create a slow lane.
+   *
+   * @param parallelism the maximum number of keys to do work for at the same time
+   * @param threshold the median validation time from which a tool is considered slow
+   * @param afterEach what to do after each piece of work, like publishing its results
+   */
+  SlowLane(int parallelism, Duration threshold, Runnable afterEach) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.permits = new Semaphore(parallelism, true);
+    this.thresholdNanos = threshold.toNanos();
+    this.afterEach = afterEach;
+  }
+
+  boolean isSlow(Tool tool) {
+    return tool.isSlow() || learnedSlowTools.contains(tool.getClass().getName());
+  }
+
+  /**
+   * Learn from how long a tool took to validate.
+   *
+   * @param tool the tool that validated
+   * @param nanos how long the validation took
+   */
+  void observed(Tool tool, long nanos) {
+    var name = tool.getClass().getName();
+    var recent = recentByTool.computeIfAbsent(name, ignored -> new ArrayDeque<>());
+    long median;
+    synchronized (recent) {
+      recent.addLast(nanos);
+      if (recent.size() > MAX_SAMPLES) {
+        recent.removeFirst();
+      }
+      if (recent.size() < MIN_SAMPLES) {
+        return;
+      }
+      median = recent.stream().sorted().skip(recent.size() / 2).findFirst().orElseThrow();
+    }
+    if (median >= thresholdNanos) {
+      if (learnedSlowTools.add(name)) {
+        log.debug("Validating in the background from now on for slow tool {}", name);
+      }
+    } else if (learnedSlowTools.remove(name)) {
+      log.debug("Validating in the foreground again for tool {}", name);
+    }
+  }
+
+  /**
+   * Do work in the background.
+   *
+   * @param key what the work is for, like a tool and a path
+   * @param work the work to do, which replaces any waiting work for the same key
+   * @return the waiting work that was replaced and won't run, or {@code null} if there was none
+   */
+  synchronized Runnable submit(Object key, Runnable work) {
+    var result = pendingByKey.put(key, work);
+    if (result != null || running.contains(key)) {
+      // The earlier work was superseded, or the running work picks up the new work when done
+      return result;
+    }
+    running.add(key);
+    active++;
+    executor.execute(() -> drain(key));
+    return null;
+  }
+
+  private void drain(Object key) {
+    permits.acquireUninterruptibly();
+    try {
+      for (var work = take(key); work != null; work = take(key)) {
+        try {
+          work.run();
+        } catch (RuntimeException e) {
+          log.error("Failed to do slow work for {}", key, e);
+        }
+        afterEach.run();
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  private synchronized Runnable take(Object key) {
+    var result = pendingByKey.remove(key);
+    if (result == null) {
+      running.remove(key);
+      active--;
+      notifyAll();
+    }
+    return result;
+  }
+
+  /**
+   * Wait until all work is done.
+   *
+   * @throws InterruptedException when interrupted while waiting
+   */
+  synchronized void awaitIdle() throws InterruptedException {
+    while (active > 0) {
+      wait();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package org.setms.km.domain.model.orchestration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Schedules validation work. Work for the same path runs in the order in which it arrives, while
+ * independent tools run in parallel on virtual threads, up to a maximum parallelism, unless the
+ * calling thread can't wait for other threads right now.
+ */
+class ValidationScheduler {
+
+  private static final ThreadLocal<Boolean> IN_TASK = ThreadLocal.withInitial(() -> false);
+
+  private final Map<String, ReentrantLock> locksByPath = new ConcurrentHashMap<>();
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Semaphore permits;
+  private final int parallelism;
+  private final BooleanSupplier parallelAllowed;
+
+  ValidationScheduler(int parallelism) {
+    this(parallelism, () -> true);
+  }
+
+  /**
+   * Create a validation scheduler.
+   *
+   * @param parallelism the maximum number of tasks to run at the same time
+   * @param parallelAllowed whether the calling thread may wait for tasks on other threads
+   */
+  ValidationScheduler(int parallelism, BooleanSupplier parallelAllowed) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.parallelism = parallelism;
+    this.permits = new Semaphore(parallelism, true);
+    this.parallelAllowed = parallelAllowed;
+  }
+
+  void inOrderFor(String path, Runnable work) {
+    inOrderFor(
+        path,
+        () -> {
+          work.run();
+          return null;
+        });
+  }
+
+  /**
+   * Do work for a path after all work for that path that arrived earlier is done.
+   *
+   * @param path the path to do work for
+   * @param work the work to do
+   * @return the result of the work
+   */
+  <T> T inOrderFor(String path, Supplier<T> work) {
+    if (IN_TASK.get()) {
+      // Changes made by a tool are handled as part of that tool's work, like nested calls
+      return work.get();
+    }
+    var lock = lockFor(path);
+    lock.lock();
+    try {
+      return work.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private ReentrantLock lockFor(String path) {
+    return locksByPath.computeIfAbsent(path, ignored -> new ReentrantLock(true));
+  }
+
+  /**
+   * Do work for several paths after all work for those paths that arrived earlier is done. Locks
+   * are taken in path order, so that overlapping work can't deadlock.
+   *
+   * @param paths the paths to do work for
+   * @param work the work to do
+   */
+  void inOrderFor(Collection<String> paths, Runnable work) {
+    if (IN_TASK.get()) {
+      work.run();
+      return;
+    }
+    var locked = new ArrayList<ReentrantLock>();
+    try {
+      for (var path : new TreeSet<>(paths)) {
+        var lock = lockFor(path);
+        lock.lock();
+        locked.add(lock);
+      }
+      work.run();
+    } finally {
+      locked.reversed().forEach(ReentrantLock::unlock);
+    }
+  }
+
+  /**
+   * Perform an action on independent items in parallel and wait until all are done.
+   *
+   * @param items the items to perform the action on
+   * @param action the action to perform
+   */
+  <T> void runAll(Collection<? extends T> items, Consumer<? super T> action) {
+    if (items.size() < 2 || isSequential()) {
+      items.forEach(action);
+      return;
+    }
+    runAndWait(items, item -> runTask(item, action));
+  }
+
+  /**
+   * Run a worker as many times in parallel as the parallelism allows, and wait until all are done.
+   * Unlike with {@linkplain #runAll(Collection, Consumer)}, work done by the workers is ordered
+   * with other work for the same paths.
+   *
+   * @param worker the worker to run, which picks its own work until there is none left
+   */
+  void runWorkers(Runnable worker) {
+    if (isSequential()) {
+      worker.run();
+      return;
+    }
+    // The workers don't take permits, since their work waits for permits to validate
+    runAndWait(Collections.nCopies(parallelism, worker), Runnable::run);
+  }
+
+  private boolean isSequential() {
+    return parallelism == 1 || IN_TASK.get() || !parallelAllowed.getAsBoolean();
+  }
+
+  private <T> void runAndWait(Collection<? extends T> items, Consumer<? super T> task) {
+    var futures = new ArrayList<Future<?>>();
+    items.forEach(item -> futures.add(executor.submit(() -> task.accept(item))));
+    RuntimeException failure = null;
+    for (var future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = new IllegalStateException("Interrupted while waiting for validation", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = toRuntimeException(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private <T> void runTask(T item, Consumer<? super T> action) {
+    permits.acquireUninterruptibly();
+    IN_TASK.set(true);
+    try {
+      action.accept(item);
+    } finally {
+      IN_TASK.remove();
+      permits.release();
+    }
+  }
+
+  private RuntimeException toRuntimeException(Throwable cause) {
+    return switch (cause) {
+      case RuntimeException runtimeException -> runtimeException;
+      case Error error -> throw error;
+      default -> new IllegalStateException(cause);
+    };
+  }
+}
@@ -0,0 +1,14 @@
+package org.setms.km.domain.model.orchestration;
+
+import org.setms.km.domain.model.tool.Tool;
+
+/**
+ * Validation work for a tool.
+ *
+ * @param tool the tool to run
+ * @param path for an {@linkplain org.setms.km.domain.model.tool.ArtifactTool artifact tool}, the
+ *     path of the artifact to validate; for a {@linkplain
+ *     org.setms.km.domain.model.tool.StandaloneTool standalone tool}, the path that triggered the
+ *     validation
+ */
+public record ValidationTask(Tool tool, String path) {}
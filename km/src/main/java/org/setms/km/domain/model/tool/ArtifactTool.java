@@ -42,6 +42,17 @@ public abstract non-sealed class ArtifactTool<A extends Artifact> extends Tool {
     return validationTargets().stream().anyMatch(input -> input.matches(path));
   }
 
+  /**
+   * Whether this tool's validation of an artifact depends on other artifacts only through the
+   * {@linkplain org.setms.km.domain.model.artifact.Link links} it has to them. If so, a change to
+   * an artifact only requires revalidation of the artifacts that link to it.
+   *
+   * @return whether validation depends only on linked artifacts
+   */
+  public boolean dependsOnlyOnLinkedArtifacts() {
+    return false;
+  }
+
   /**
    * Validate an artifact stored at a resource.
    *
@@ -56,8 +67,9 @@ public abstract non-sealed class ArtifactTool<A extends Artifact> extends Tool {
             .filter(i -> i.matches(resource.path()))
             .findFirst()
             .orElseGet(() -> validationTargets().iterator().next());
-    try (var sutStream = resource.readFrom()) {
-      var result = input.format().newParser().parse(resource.name(), sutStream, input.type(), true);
+    try {
+      var content = resource.readAsBuffer();
+      var result = input.format().newParser().parse(resource.name(), content, input.type(), true);
       validate(resource, result, context, diagnostics);
       return result;
     } catch (Exception e) {
@@ -0,0 +1,50 @@
+package org.setms.km.domain.model.tool;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cooperative cancellation of tool work that's no longer needed, for instance because the artifact
+ * it's for changed again. Tools with long loops call {@linkplain #checkpoint()} between iterations.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class Cancellation {
+
+  private static final ThreadLocal<BooleanSupplier> CANCELLED =
+      ThreadLocal.withInitial(() -> () -> false);
+
+  /**
+   * Stop the current work if it's no longer needed.
+   *
+   * @throws CancellationException when the current work is cancelled
+   */
+  public static void checkpoint() {
+    if (isCancelled()) {
+      throw new CancellationException();
+    }
+  }
+
+  public static boolean isCancelled() {
+    return CANCELLED.get().getAsBoolean();
+  }
+
+  /**
+   * Do work that can be cancelled.
+   *
+   * @param cancelled whether the work is cancelled
+   * @param work the work to do
+   * @throws CancellationException when the work is cancelled at a checkpoint
+   */
+  public static void run(BooleanSupplier cancelled, Runnable work) {
+    var previous = CANCELLED.get();
+    CANCELLED.set(cancelled);
+    try {
+      work.run();
+    } finally {
+      CANCELLED.set(previous);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.setms.km.domain.model.tool;
 
+import static java.util.Collections.emptyList;
 import static org.setms.km.domain.model.format.Strings.initLower;
 
 import java.util.ArrayList;
@@ -9,6 +10,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.setms.km.domain.model.artifact.*;
 import org.setms.km.domain.model.nlp.English;
@@ -18,18 +20,57 @@ public class ResolvedInputs implements LinkResolver {
 
   private final NaturalLanguage language = new English();
   private final Map<String, List<Artifact>> values = new HashMap<>();
+  private final Map<String, List<Supplier<? extends List<? extends Artifact>>>> deferred =
+      new HashMap<>();
+  private Map<Link, List<Artifact>> referrersByTarget;
 
-  public ResolvedInputs put(String name, List<? extends Artifact> resolved) {
-    values.computeIfAbsent(name, ignored -> new ArrayList<>()).addAll(resolved);
+  /**
+   * Add resolved artifacts. Immutable lists are shared rather than copied, so that the same
+   * resolved artifacts can be handed to many tools cheaply.
+   *
+   * @param name the name of the input
+   * @param resolved the artifacts resolved for the input
+   * @return this resolved inputs
+   */
+  public synchronized ResolvedInputs put(String name, List<? extends Artifact> resolved) {
+    values.merge(
+        name,
+        List.copyOf(resolved),
+        (existing, added) -> Stream.concat(existing.stream(), added.stream()).toList());
+    referrersByTarget = null;
     return this;
   }
 
+  /**
+   * Add artifacts that are resolved only when a tool first asks for them, so that tools that don't
+   * need an input don't pay for resolving it.
+   *
+   * @param name the name of the input
+   * @param resolver how to resolve the artifacts for the input
+   * @return this resolved inputs
+   */
+  public synchronized ResolvedInputs defer(
+      String name, Supplier<? extends List<? extends Artifact>> resolver) {
+    deferred.computeIfAbsent(name, ignored -> new ArrayList<>()).add(resolver);
+    referrersByTarget = null;
+    return this;
+  }
+
+  private synchronized List<Artifact> valuesFor(String name) {
+    var resolvers = deferred.remove(name);
+    if (resolvers != null) {
+      Cancellation.checkpoint();
+      resolvers.forEach(resolver -> put(name, resolver.get()));
+    }
+    return values.get(name);
+  }
+
   public <T extends Artifact> List<T> get(Class<T> type) {
     return get(initLower(language.plural(type.getSimpleName())), type);
   }
 
   private <T extends Artifact> List<T> get(String name, Class<T> type) {
-    return Optional.ofNullable(values.get(name)).orElseGet(Collections::emptyList).stream()
+    return Optional.ofNullable(valuesFor(name)).orElseGet(Collections::emptyList).stream()
         .map(type::cast)
         .toList();
   }
@@ -43,7 +84,7 @@ public class ResolvedInputs implements LinkResolver {
     if (type == null) {
       return new UnresolvedArtifact(new FullyQualifiedName(link.getId()), null);
     }
-    var candidates = values.get(language.plural(type));
+    var candidates = valuesFor(language.plural(type));
     var resolvedObject = link.resolveFrom(candidates);
     return resolvedObject.orElseGet(
         () -> new UnresolvedArtifact(new FullyQualifiedName(link.getId()), link.getType()));
@@ -53,7 +94,35 @@ public class ResolvedInputs implements LinkResolver {
     return Artifact.find(get(type), name);
   }
 
-  public Stream<? extends Artifact> all() {
+  /**
+   * The artifacts that link to a target. Links without a type are considered to point to any target
+   * with the same ID.
+   *
+   * @param target the target of the links
+   * @return the referring artifacts
+   */
+  public synchronized List<Artifact> referrersOf(Link target) {
+    if (referrersByTarget == null) {
+      referrersByTarget = new HashMap<>();
+      all()
+          .forEach(
+              artifact ->
+                  Links.in(artifact)
+                      .forEach(
+                          link ->
+                              referrersByTarget
+                                  .computeIfAbsent(link, ignored -> new ArrayList<>())
+                                  .add(artifact)));
+    }
+    var result = new ArrayList<>(referrersByTarget.getOrDefault(target, emptyList()));
+    if (target.getType() != null) {
+      result.addAll(referrersByTarget.getOrDefault(new Link(null, target.getId()), emptyList()));
+    }
+    return result.stream().distinct().toList();
+  }
+
+  public synchronized Stream<? extends Artifact> all() {
+    List.copyOf(deferred.keySet()).forEach(this::valuesFor);
     return values.values().stream().flatMap(Collection::stream).distinct();
   }
 }
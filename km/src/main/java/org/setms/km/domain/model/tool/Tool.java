@@ -37,6 +37,16 @@ public abstract sealed class Tool permits ArtifactTool, StandaloneTool {
     return emptySet();
   }
 
+  /**
+   * Whether validating takes this tool long, for instance because it builds code. The work of slow
+   * tools is scheduled separately, so that it doesn't hold up the feedback of other tools.
+   *
+   * @return whether this tool is slow
+   */
+  public boolean isSlow() {
+    return false;
+  }
+
   /**
    * All inputs this tool needs for any purpose.
    *
@@ -0,0 +1,25 @@
+package org.setms.km.domain.model.workspace;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import org.setms.km.domain.model.artifact.Artifact;
+
+/**
+ * A batch of changes to a workspace.
+ *
+ * @param changed the artifacts that were created or changed, by path. The artifact is
+ *     <code>null</code> when the path couldn't be parsed.
+ * @param deleted the paths that were deleted
+ * @param modifiedAt when the changed resources were last modified right before they were parsed,
+ *     by path
+ */
+public record ChangeBatch(
+    Map<String, Artifact> changed,
+    Collection<String> deleted,
+    Map<String, LocalDateTime> modifiedAt) {
+
+  public int size() {
+    return changed.size() + deleted.size();
+  }
+}
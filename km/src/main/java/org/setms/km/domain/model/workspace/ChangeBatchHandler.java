@@ -0,0 +1,7 @@
+package org.setms.km.domain.model.workspace;
+
+@FunctionalInterface
+public interface ChangeBatchHandler {
+
+  void changed(ChangeBatch batch);
+}
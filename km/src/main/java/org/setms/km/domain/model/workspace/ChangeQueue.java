@@ -0,0 +1,216 @@
+package org.setms.km.domain.model.workspace;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queue of changes to paths that coalesces bursts of changes. Changes are delivered in a batch
+ * once no new changes arrived for a quiet window, or at most {@value #MAX_DELAY_IN_WINDOWS} windows
+ * after the first pending change. Multiple changes to the same path fold into one. A path that was
+ * created and then deleted inside the window isn't delivered at all, but only when the queue
+ * delivered its deletion before, since watchers also report existing files as created, for
+ * instance when they're replaced. Without a quiet window,
+ * changes are delivered immediately on the calling thread. While the queue is held, changes are
+ * kept until it's released, regardless of the quiet window.
+ */
+@Slf4j
+class ChangeQueue {
+
+  private static final int MAX_DELAY_IN_WINDOWS = 10;
+  // Forgetting that a path is absent only costs delivering a deletion that changes nothing
+  private static final int MAX_KNOWN_ABSENT = 1024;
+
+  private final BiConsumer<Collection<String>, Collection<String>> deliverer;
+  private final Map<String, Kind> pendingByPath = new LinkedHashMap<>();
+  private final Set<String> knownAbsent =
+      Collections.newSetFromMap(
+          new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+              return size() > MAX_KNOWN_ABSENT;
+            }
+          });
+  private volatile Duration quietWindow = Duration.ZERO;
+  private ScheduledExecutorService executor;
+  private ScheduledFuture<?> flush;
+  private int holds;
+  private long firstPendingAt;
+  private long received;
+  private long delivered;
+  private long batches;
+
+  /**
+   * Create a change queue.
+   *
+   * @param deliverer what to do with a batch of changed and deleted paths
+   */
+  ChangeQueue(BiConsumer<Collection<String>, Collection<String>> deliverer) {
+    this.deliverer = deliverer;
+  }
+
+  synchronized void setQuietWindow(Duration quietWindow) {
+    if (quietWindow.isNegative()) {
+      throw new IllegalArgumentException("Quiet window can't be negative");
+    }
+    this.quietWindow = quietWindow;
+    if (!quietWindow.isZero() && executor == null) {
+      executor =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                var result = new Thread(runnable, "km-change-queue");
+                result.setDaemon(true);
+                return result;
+              });
+    }
+  }
+
+  void created(String path) {
+    add(path, Kind.CREATED);
+  }
+
+  void changed(String path) {
+    add(path, Kind.CHANGED);
+  }
+
+  void deleted(String path) {
+    add(path, Kind.DELETED);
+  }
+
+  private void add(String path, Kind kind) {
+    synchronized (this) {
+      received++;
+      if (holds > 0) {
+        pend(path, kind);
+        return;
+      }
+      if (!quietWindow.isZero()) {
+        enqueue(path, kind);
+        return;
+      }
+    }
+    if (kind == Kind.DELETED) {
+      deliver(List.of(), List.of(path));
+    } else {
+      deliver(List.of(path), List.of());
+    }
+  }
+
+  private void enqueue(String path, Kind kind) {
+    pend(path, kind);
+    if (flush != null) {
+      flush.cancel(false);
+    }
+    var window = quietWindow.toNanos();
+    var remaining = firstPendingAt + window * MAX_DELAY_IN_WINDOWS - System.nanoTime();
+    flush = executor.schedule(this::flushUnlessHeld, Math.min(window, remaining), NANOSECONDS);
+  }
+
+  private void pend(String path, Kind kind) {
+    if (pendingByPath.isEmpty()) {
+      firstPendingAt = System.nanoTime();
+    }
+    var folded = kind.after(pendingByPath.remove(path), knownAbsent.contains(path));
+    if (folded != null) {
+      pendingByPath.put(path, folded);
+    }
+  }
+
+  /** Keep changes until {@linkplain #release()} is called as often as this method. */
+  synchronized void hold() {
+    holds++;
+  }
+
+  /** Stop keeping changes, and deliver the kept ones once no more holds remain. */
+  void release() {
+    synchronized (this) {
+      if (holds == 0) {
+        throw new IllegalStateException("Change queue isn't held");
+      }
+      holds--;
+      if (holds > 0) {
+        return;
+      }
+    }
+    flush();
+  }
+
+  private void flushUnlessHeld() {
+    synchronized (this) {
+      if (holds > 0) {
+        // Releasing the queue delivers the pending changes
+        return;
+      }
+    }
+    flush();
+  }
+
+  /** Deliver all pending changes now. */
+  void flush() {
+    var changed = new ArrayList<String>();
+    var deleted = new ArrayList<String>();
+    synchronized (this) {
+      pendingByPath.forEach((path, kind) -> (kind == Kind.DELETED ? deleted : changed).add(path));
+      pendingByPath.clear();
+      flush = null;
+    }
+    if (!changed.isEmpty() || !deleted.isEmpty()) {
+      deliver(changed, deleted);
+    }
+  }
+
+  private void deliver(Collection<String> changed, Collection<String> deleted) {
+    synchronized (this) {
+      delivered += changed.size() + deleted.size();
+      batches++;
+      changed.forEach(knownAbsent::remove);
+      knownAbsent.addAll(deleted);
+    }
+    try {
+      deliverer.accept(changed, deleted);
+    } catch (RuntimeException e) {
+      if (quietWindow.isZero()) {
+        throw e;
+      }
+      log.error("Failed to process changes to {} and deletions of {}", changed, deleted, e);
+    }
+  }
+
+  synchronized ChangeQueueStatistics statistics() {
+    return new ChangeQueueStatistics(pendingByPath.size(), received, delivered, batches);
+  }
+
+  void close() {
+    flush();
+    synchronized (this) {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+      quietWindow = Duration.ZERO;
+    }
+  }
+
+  private enum Kind {
+    CREATED,
+    CHANGED,
+    DELETED;
+
+    Kind after(Kind previous, boolean wasAbsent) {
+      if (previous == null) {
+        return this;
+      }
+      return switch (this) {
+        case CREATED -> previous == CREATED ? CREATED : CHANGED;
+        case CHANGED -> previous == DELETED ? CHANGED : previous;
+        case DELETED -> previous == CREATED && wasAbsent ? null : DELETED;
+      };
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package org.setms.km.domain.model.workspace;
+
+/**
+ * Statistics about the queue that coalesces changes in a workspace.
+ *
+ * @param depth the number of paths with pending changes
+ * @param received the number of changes received
+ * @param delivered the number of changes delivered after coalescing
+ * @param batches the number of batches delivered
+ */
+public record ChangeQueueStatistics(int depth, long received, long delivered, long batches) {
+
+  /**
+   * How many received changes were delivered as one, on average.
+   *
+   * @return the coalescing ratio, which is at least 1 once changes were delivered
+   */
+  public double coalescingRatio() {
+    return delivered == 0 ? 1.0 : (double) (received - depth) / delivered;
+  }
+}
@@ -1,9 +1,14 @@
 package org.setms.km.domain.model.workspace;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public record Glob(String path, String pattern, Glob excludes) {
 
+  // There are only a handful of distinct patterns, so compile each one once
+  private static final Map<String, Pattern> COMPILED = new ConcurrentHashMap<>();
+
   public Glob(String path, String pattern) {
     this(path, pattern, null);
   }
@@ -27,22 +32,26 @@ public record Glob(String path, String pattern, Glob excludes) {
     if (excludes != null && excludes.matches(path)) {
       return false;
     }
-    var candidate = path;
-    var index = path.isEmpty() ? 0 : candidate.indexOf(this.path);
+    var index = path.isEmpty() ? 0 : path.indexOf(this.path);
     if (index < 0) {
       return false;
     }
     index += this.path.length();
-    if (candidate.length() <= index) {
+    if (path.length() <= index) {
       return false;
     }
-    candidate = candidate.substring(index);
-    var regex = patternToRegex(pattern);
-    var matcher = Pattern.compile(regex).matcher(candidate);
-    return matcher.matches();
+    return COMPILED
+        .computeIfAbsent(pattern, Glob::compile)
+        .matcher(path)
+        .region(index, path.length())
+        .matches();
+  }
+
+  private static Pattern compile(String pattern) {
+    return Pattern.compile(patternToRegex(pattern));
   }
 
-  private String patternToRegex(String pattern) {
+  private static String patternToRegex(String pattern) {
     var result = new StringBuilder();
 
     var remainder = pattern;
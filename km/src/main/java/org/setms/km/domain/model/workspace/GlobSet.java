@@ -0,0 +1,61 @@
+package org.setms.km.domain.model.workspace;
+
+import static java.util.Comparator.comparingInt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Items that each have a {@linkplain Glob glob}, indexed so that finding the items whose glob
+ * matches a path only looks at globs that could match. Globs are grouped by the file extension
+ * their pattern ends in; globs without a fixed extension are always looked at.
+ */
+public class GlobSet<T> {
+
+  private final Map<String, List<Entry<T>>> byExtension = new HashMap<>();
+  private final List<Entry<T>> anyExtension = new ArrayList<>();
+
+  public GlobSet(Collection<? extends T> items, Function<? super T, Glob> globOf) {
+    var index = 0;
+    for (var item : items) {
+      var entry = new Entry<T>(index++, item, globOf.apply(item));
+      extensionOf(entry.glob().pattern())
+          .filter(extension -> !extension.contains("*"))
+          .ifPresentOrElse(
+              extension ->
+                  byExtension.computeIfAbsent(extension, ignored -> new ArrayList<>()).add(entry),
+              () -> anyExtension.add(entry));
+    }
+  }
+
+  private static Optional<String> extensionOf(String path) {
+    var name = path.substring(path.lastIndexOf('/') + 1);
+    var index = name.lastIndexOf('.');
+    return index < 0 ? Optional.empty() : Optional.of(name.substring(index + 1));
+  }
+
+  /**
+   * The items whose glob matches a path.
+   *
+   * @param path the path to match
+   * @return the matching items, in the order in which they were given
+   */
+  public List<T> matching(String path) {
+    var result = new ArrayList<Entry<T>>();
+    extensionOf(path).map(byExtension::get).ifPresent(entries -> collect(entries, path, result));
+    collect(anyExtension, path, result);
+    result.sort(comparingInt(Entry::index));
+    return result.stream().map(Entry::item).toList();
+  }
+
+  private void collect(List<Entry<T>> entries, String path, List<Entry<T>> matches) {
+    entries.stream().filter(entry -> entry.glob().matches(path)).forEach(matches::add);
+  }
+
+  private record Entry<T>(int index, T item, Glob glob) {}
+}
@@ -1,6 +1,6 @@
 package org.setms.km.domain.model.workspace;
 
-import static org.setms.km.domain.model.file.Files.readAllAsString;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.File;
 import java.io.IOException;
@@ -8,8 +8,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
@@ -44,22 +47,119 @@ public interface Resource<T extends Resource<T>> {
 
   InputStream readFrom() throws IOException;
 
-  default String readAsString() {
+  /**
+   * Read the content of this resource in one go. Implementations should avoid copying the content
+   * where they can, for instance by mapping large files into memory.
+   *
+   * @return a read-only view of the content
+   * @throws IOException when the resource can't be read
+   */
+  default ByteBuffer readAsBuffer() throws IOException {
     try (var input = readFrom()) {
-      return readAllAsString(input);
+      return ByteBuffer.wrap(input.readAllBytes()).asReadOnlyBuffer();
+    }
+  }
+
+  default String readAsString() {
+    try {
+      return UTF_8.decode(readAsBuffer()).toString();
     } catch (IOException e) {
       return "";
     }
   }
 
+  /**
+   * Open a stream that replaces the content of this resource. The content is only written, and the
+   * change only reported, when it differs from the current content.
+   *
+   * @return the stream to write to
+   * @throws IOException when the resource can't be written
+   */
   OutputStream writeTo() throws IOException;
 
+  /**
+   * Check whether this resource holds exactly the given content.
+   *
+   * @param content the content to compare with
+   * @return true if the resource exists with the given content, false otherwise
+   */
+  default boolean hasContent(byte[] content) {
+    if (!exists()) {
+      return false;
+    }
+    try {
+      return readAsBuffer().equals(ByteBuffer.wrap(content));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Open a stream that adds to the end of this resource, rather than replacing its content.
+   *
+   * @return the stream to write to
+   * @throws IOException when the resource can't be written
+   */
+  default OutputStream appendTo() throws IOException {
+    var existing = new byte[0];
+    if (exists()) {
+      try (var input = readFrom()) {
+        existing = input.readAllBytes();
+      }
+    }
+    var result = writeTo();
+    result.write(existing);
+    return result;
+  }
+
   default void writeAsString(String content) throws IOException {
     try (var writer = new OutputStreamWriter(writeTo())) {
       writer.write(content);
     }
   }
 
+  /**
+   * Replace this resource, and everything below it, with another resource, which then no longer
+   * exists. Implementations should make the replacement appear in one step where they can, so that
+   * readers never see a mix of old and new content.
+   *
+   * @param replacement the resource to put in the place of this one
+   * @throws IOException when this resource can't be replaced
+   */
+  default void replaceWith(Resource<?> replacement) throws IOException {
+    var replacingFiles = filesBelow(replacement);
+    for (var entry : replacingFiles.entrySet()) {
+      try (var input = entry.getValue().readFrom();
+          var output = select(entry.getKey()).writeTo()) {
+        input.transferTo(output);
+      }
+    }
+    for (var entry : filesBelow(this).entrySet()) {
+      if (!replacingFiles.containsKey(entry.getKey())) {
+        entry.getValue().delete();
+      }
+    }
+    replacement.delete();
+  }
+
+  private static Map<String, Resource<?>> filesBelow(Resource<?> base) {
+    var result = new LinkedHashMap<String, Resource<?>>();
+    addFilesBelow(base, base.path().length() + 1, result);
+    return result;
+  }
+
+  private static void addFilesBelow(
+      Resource<?> resource, int prefix, Map<String, Resource<?>> files) {
+    var children = resource.children();
+    if (children.isEmpty()) {
+      if (resource.exists() && resource.path().length() > prefix) {
+        files.put(resource.path().substring(prefix), resource);
+      }
+      return;
+    }
+    children.forEach(child -> addFilesBelow(child, prefix, files));
+  }
+
   default void delete() throws IOException {
     if (exists()) {
       doDelete();
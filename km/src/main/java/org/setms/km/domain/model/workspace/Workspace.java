@@ -1,7 +1,11 @@
 package org.setms.km.domain.model.workspace;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.setms.km.domain.model.artifact.Artifact;
 
@@ -11,6 +15,9 @@ public abstract class Workspace<T> {
   private final Collection<ArtifactDefinition> artifactDefinitions = new HashSet<>();
   private final Collection<ArtifactChangedHandler> artifactChangedHandlers = new ArrayList<>();
   private final Collection<ArtifactDeletedHandler> artifactDeletedHandlers = new ArrayList<>();
+  private final Collection<ChangeBatchHandler> changeBatchHandlers = new ArrayList<>();
+  private final ChangeQueue changeQueue = new ChangeQueue(this::deliver);
+  private final Set<String> unreportedPaths = ConcurrentHashMap.newKeySet();
 
   private Resource<?> root;
 
@@ -31,8 +38,10 @@ public abstract class Workspace<T> {
     if (resource == null) {
       return null;
     }
-    try (var stream = resource.readFrom()) {
-      return definition.parser().parse(resource.name(), stream, definition.type(), false);
+    try {
+      return definition
+          .parser()
+          .parse(resource.name(), resource.readAsBuffer(), definition.type(), false);
     } catch (IOException e) {
       return null;
     }
@@ -42,17 +51,100 @@ public abstract class Workspace<T> {
     artifactChangedHandlers.add(handler);
   }
 
-  protected void onChanged(String path) {
-    var artifact = parse(path).orElse(null);
-    artifactChangedHandlers.forEach(handler -> handler.changed(path, artifact));
-  }
-
   public void registerArtifactDeletedHandler(ArtifactDeletedHandler handler) {
     artifactDeletedHandlers.add(handler);
   }
 
+  /**
+   * Register a handler that processes all changes in a batch at once. Batch handlers are called
+   * before the handlers for individual artifacts.
+   *
+   * @param handler the handler to register
+   */
+  public void registerChangeBatchHandler(ChangeBatchHandler handler) {
+    changeBatchHandlers.add(handler);
+  }
+
+  /**
+   * Coalesce bursts of changes, so that handlers process them together. By default, changes are
+   * delivered immediately.
+   *
+   * @param quietWindow how long no changes must arrive before the pending changes are delivered
+   */
+  public void coalesceChangesWithin(Duration quietWindow) {
+    changeQueue.setQuietWindow(quietWindow);
+  }
+
+  public ChangeQueueStatistics changeQueueStatistics() {
+    return changeQueue.statistics();
+  }
+
+  /**
+   * Do work that changes resources, and deliver all changes made in the meantime together once
+   * the work is done. Changes made by other threads while the work is ongoing are held as well.
+   *
+   * @param work the work to do
+   * @return the result of the work
+   */
+  public <R> R batchChanges(Supplier<R> work) {
+    changeQueue.hold();
+    try {
+      return work.get();
+    } finally {
+      changeQueue.release();
+    }
+  }
+
+  /**
+   * Stop reporting changes to a resource, for instance because it holds bookkeeping that's written
+   * often and that nobody reacts to.
+   *
+   * @param path the path of the resource
+   */
+  public void ignoreChangesTo(String path) {
+    unreportedPaths.add(root().select(path).path());
+  }
+
+  /** Deliver any changes that are waiting for their quiet window to pass. */
+  public void flushChanges() {
+    changeQueue.flush();
+  }
+
+  protected void onCreated(String path) {
+    if (!unreportedPaths.contains(path)) {
+      changeQueue.created(path);
+    }
+  }
+
+  protected void onChanged(String path) {
+    if (!unreportedPaths.contains(path)) {
+      changeQueue.changed(path);
+    }
+  }
+
   protected void onDeleted(String path) {
-    artifactDeletedHandlers.forEach(handler -> handler.deleted(path));
+    if (!unreportedPaths.contains(path)) {
+      changeQueue.deleted(path);
+    }
+  }
+
+  private void deliver(Collection<String> changedPaths, Collection<String> deletedPaths) {
+    var changed = new LinkedHashMap<String, Artifact>();
+    var modifiedAt = new HashMap<String, LocalDateTime>();
+    changedPaths.forEach(
+        path -> {
+          // Before parsing, so that a change while parsing makes the artifact out of date
+          Optional.ofNullable(root().select(path))
+              .map(Resource::lastModifiedAt)
+              .ifPresent(time -> modifiedAt.put(path, time));
+          changed.put(path, parse(path).orElse(null));
+        });
+    var batch = new ChangeBatch(changed, deletedPaths, modifiedAt);
+    changeBatchHandlers.forEach(handler -> handler.changed(batch));
+    deletedPaths.forEach(path -> artifactDeletedHandlers.forEach(handler -> handler.deleted(path)));
+    changed.forEach(
+        (path, artifact) ->
+            artifactChangedHandlers.forEach(handler -> handler.changed(path, artifact)));
   }
 
   public Resource<?> root() {
@@ -64,7 +156,9 @@ public abstract class Workspace<T> {
 
   protected abstract Resource<?> newRoot();
 
-  public void close() throws IOException {}
+  public void close() throws IOException {
+    changeQueue.close();
+  }
 
   public abstract Resource<?> find(T external);
 }
@@ -1,11 +1,19 @@
 package org.setms.km.outbound.workspace.dir;
 
+import static io.methvin.watcher.DirectoryChangeEvent.EventType.CREATE;
 import static io.methvin.watcher.DirectoryChangeEvent.EventType.DELETE;
 
 import io.methvin.watcher.DirectoryChangeEvent;
+import io.methvin.watcher.DirectoryChangeEvent.EventType;
 import io.methvin.watcher.DirectoryWatcher;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.setms.km.domain.model.workspace.Resource;
 import org.setms.km.domain.model.workspace.Workspace;
@@ -13,14 +21,34 @@ import org.setms.km.domain.model.workspace.Workspace;
 @Slf4j
 public class DirectoryWorkspace extends Workspace<File> {
 
+  static final String TEMPORARY_SUFFIX = ".km-tmp";
+  // The directory watcher reports changes well within this time, if at all
+  private static final long ECHO_TIMEOUT_NANOS = Duration.ofSeconds(10).toNanos();
+  private static final int ECHOES_BEFORE_EXPIRING = 256;
+
   private final DirectoryWatcher watcher;
+  private final Map<Path, Echo> written = new ConcurrentHashMap<>();
   final File root;
+  final FileTree files;
+  final SyncPolicy syncPolicy;
 
   public DirectoryWorkspace(File root) {
+    this(root, SyncPolicy.NONE);
+  }
+
+  /**
+   * Create a workspace for a directory.
+   *
+   * @param root the directory
+   * @param syncPolicy whether writes wait until their content is on disk
+   */
+  public DirectoryWorkspace(File root, SyncPolicy syncPolicy) {
     this.root = validate(root);
+    this.files = new FileTree(this.root);
+    this.syncPolicy = syncPolicy;
     try {
       this.watcher =
-          DirectoryWatcher.builder().path(this.root.toPath()).listener(this::fileChanged).build();
+          DirectoryWatcher.builder().path(this.root.toPath()).listener(this::watched).build();
     } catch (IOException e) {
       throw new IllegalStateException("Failed to watch directory " + root, e);
     }
@@ -31,6 +59,7 @@ public class DirectoryWorkspace extends Workspace<File> {
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
+    files.scan();
   }
 
   @SuppressWarnings("ResultOfMethodCallIgnored")
@@ -53,24 +82,133 @@ public class DirectoryWorkspace extends Workspace<File> {
     }
   }
 
+  private void watched(DirectoryChangeEvent event) {
+    if (isTemporary(event.path()) || isEcho(event)) {
+      return;
+    }
+    fileChanged(event);
+  }
+
+  private boolean isTemporary(Path path) {
+    return path != null && path.getFileName().toString().endsWith(TEMPORARY_SUFFIX);
+  }
+
+  private boolean isEcho(DirectoryChangeEvent event) {
+    if (event.isDirectory() || event.eventType() == DELETE || event.path() == null) {
+      return false;
+    }
+    var echo = written.get(event.path());
+    if (echo == null) {
+      return false;
+    }
+    if (echo.isExpired(System.nanoTime())) {
+      written.remove(event.path(), echo);
+      return false;
+    }
+    return echo.stamp().equals(Stamp.of(event.path()));
+  }
+
+  private void expectEcho(Path path, Stamp stamp) {
+    if (stamp == null) {
+      return;
+    }
+    var now = System.nanoTime();
+    // Replaces what was expected from an earlier write to the same path
+    written.put(path, new Echo(stamp, now + ECHO_TIMEOUT_NANOS));
+    if (written.size() > ECHOES_BEFORE_EXPIRING) {
+      // Forget writes the directory watcher didn't report, like those it missed on overflow
+      written.values().removeIf(echo -> echo.isExpired(now));
+    }
+  }
+
+  /**
+   * Get ready for a file to be replaced by another, so that the directory watcher's report of the
+   * replacement is recognized, even when it comes in before the replacement is done.
+   *
+   * @param path the path of the file that will be replaced
+   * @param replacement the path of the file that will replace it
+   */
+  void replacing(Path path, Path replacement) {
+    expectEcho(path, Stamp.of(replacement));
+  }
+
+  /**
+   * Report a change that this workspace made itself. The directory watcher reports the same change
+   * later, and that report is then ignored.
+   *
+   * @param path the path of the changed file
+   * @param eventType the kind of change
+   */
+  void wrote(Path path, EventType eventType) {
+    expectEcho(path, Stamp.of(path));
+    fileChanged(new DirectoryChangeEvent(eventType, false, path, null, 1, null));
+  }
+
   void fileChanged(DirectoryChangeEvent event) {
+    if (event.eventType() == DELETE && event.path() != null) {
+      written.remove(event.path());
+    }
+    updateFiles(event);
     if (event.isDirectory()) {
       return;
     }
     var path = toPath(event);
     if (event.eventType() == DELETE) {
       onDeleted(path);
+    } else if (event.eventType() == CREATE) {
+      onCreated(path);
     } else {
       onChanged(path);
     }
   }
 
+  private void updateFiles(DirectoryChangeEvent event) {
+    switch (event.eventType()) {
+      case CREATE -> files.added(event.path().toFile(), event.isDirectory());
+      case MODIFY -> {
+        if (!event.isDirectory()) {
+          files.added(event.path().toFile(), false);
+        }
+      }
+      case DELETE -> files.removed(event.path().toFile());
+      case OVERFLOW -> files.scan();
+    }
+  }
+
   private String toPath(DirectoryChangeEvent event) {
     var result = event.path().toString();
     result = result.substring(root.getPath().length());
     return result;
   }
 
+  public enum SyncPolicy {
+    /** Leave it to the operating system when to put written content on disk. */
+    NONE,
+    /** Put written content on disk before reporting the change, so it survives a crash. */
+    ALWAYS
+  }
+
+  /** What a file looked like right after this workspace wrote it. */
+  private record Stamp(Object key, FileTime modified, long size) {
+
+    static Stamp of(Path path) {
+      try {
+        var attributes = java.nio.file.Files.readAttributes(path, BasicFileAttributes.class);
+        return new Stamp(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+      } catch (IOException e) {
+        return null;
+      }
+    }
+  }
+
+  /** A report of its own write that the directory watcher is expected to send. */
+  private record Echo(Stamp stamp, long expiresAt) {
+
+    boolean isExpired(long now) {
+      return now - expiresAt > 0;
+    }
+  }
+
   @Override
   protected Resource<?> newRoot() {
     return new FileResource(root, this);
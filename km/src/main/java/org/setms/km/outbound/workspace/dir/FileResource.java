@@ -1,18 +1,32 @@
 package org.setms.km.outbound.workspace.dir;
 
 import static io.methvin.watcher.DirectoryChangeEvent.EventType.*;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.file.Files.readAttributes;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Comparator.comparing;
+import static org.setms.km.outbound.workspace.dir.DirectoryWorkspace.TEMPORARY_SUFFIX;
 
 import io.methvin.watcher.DirectoryChangeEvent;
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -20,12 +34,22 @@ import lombok.RequiredArgsConstructor;
 import org.setms.km.domain.model.file.Files;
 import org.setms.km.domain.model.workspace.Glob;
 import org.setms.km.domain.model.workspace.Resource;
+import org.setms.km.outbound.workspace.dir.DirectoryWorkspace.SyncPolicy;
 
 @Getter(AccessLevel.PACKAGE)
 @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 @EqualsAndHashCode
 class FileResource implements Resource<FileResource> {
 
+  // Below this size, mapping a file costs more than reading it
+  private static final long MAP_THRESHOLD = 1024 * 1024;
+  // A file stays mapped until its buffer is garbage collected, and Windows can't replace it then
+  private static final boolean MAPPING_BLOCKS_WRITES =
+      System.getProperty("os.name", "").startsWith("Windows");
+  // Other processes usually hold files open only briefly
+  private static final int MOVE_ATTEMPTS = 5;
+  private static final long MOVE_BACKOFF_MILLIS = 10;
+
   private final File file;
   private final DirectoryWorkspace workspace;
 
@@ -57,7 +81,11 @@ class FileResource implements Resource<FileResource> {
 
   @Override
   public List<FileResource> children() {
-    return Files.childrenOf(file)
+    return workspace
+        .files
+        .children(file)
+        .map(List::stream)
+        .orElseGet(() -> Files.childrenOf(file))
         .map(child -> new FileResource(child, workspace))
         .sorted(comparing(FileResource::name))
         .toList();
@@ -81,7 +109,8 @@ class FileResource implements Resource<FileResource> {
 
   @Override
   public List<FileResource> matching(String path, String extension) {
-    return Files.matching(file, Glob.of(path, extension)).stream()
+    var glob = Glob.of(path, extension);
+    return workspace.files.matching(file, glob).orElseGet(() -> Files.matching(file, glob)).stream()
         .map(matching -> new FileResource(matching, workspace))
         .toList();
   }
@@ -95,17 +124,192 @@ class FileResource implements Resource<FileResource> {
   }
 
   @Override
+  public ByteBuffer readAsBuffer() throws IOException {
+    if (!file.isFile()) {
+      throw new IOException("%s is not a file, so can't read from it".formatted(file));
+    }
+    try (var channel = FileChannel.open(file.toPath(), READ)) {
+      var size = channel.size();
+      if (size >= MAP_THRESHOLD && !MAPPING_BLOCKS_WRITES) {
+        return channel.map(READ_ONLY, 0, size);
+      }
+      var result = ByteBuffer.allocate((int) size);
+      while (result.hasRemaining() && channel.read(result) >= 0) {
+        // Keep reading until the buffer is full
+      }
+      return result.flip().asReadOnlyBuffer();
+    }
+  }
+
+  @Override
+  public OutputStream writeTo() {
+    return new ByteArrayOutputStream() {
+      @Override
+      public void close() throws IOException {
+        write(toByteArray());
+      }
+    };
+  }
+
+  /**
+   * Replace the content of the file. The content goes to a temporary file next to it first, which
+   * then replaces the file in one step, so that readers never see a partially written file. Windows
+   * refuses to replace a file while another process has it open, so replacing it is retried a few
+   * times before giving up, leaving the file as it was.
+   */
   @SuppressWarnings("ResultOfMethodCallIgnored")
-  public OutputStream writeTo() throws IOException {
+  private void write(byte[] content) throws IOException {
+    if (hasContent(content)) {
+      return;
+    }
     file.getParentFile().mkdirs();
     var eventType = file.isFile() ? MODIFY : CREATE;
-    return new FileOutputStream(file) {
+    var target = file.toPath();
+    var temporary = temporarySiblingOf(target);
+    try {
+      try (var channel = FileChannel.open(temporary, CREATE_NEW, WRITE)) {
+        var buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        if (workspace.syncPolicy == SyncPolicy.ALWAYS) {
+          channel.force(true);
+        }
+      }
+      keepPermissions(target, temporary);
+      workspace.replacing(target, temporary);
+      moveInPlace(temporary, target);
+    } finally {
+      java.nio.file.Files.deleteIfExists(temporary);
+    }
+    workspace.wrote(target, eventType);
+  }
+
+  private void keepPermissions(Path target, Path temporary) {
+    try {
+      if (java.nio.file.Files.exists(target)) {
+        java.nio.file.Files.setPosixFilePermissions(
+            temporary, java.nio.file.Files.getPosixFilePermissions(target));
+      }
+    } catch (IOException | UnsupportedOperationException e) {
+      // Not a POSIX file system, or not our file
+    }
+  }
+
+  /**
+   * Replace this file or directory with another one in the same workspace by renaming, so that
+   * readers see either all old or all new content. Renaming can't replace a directory that isn't
+   * empty, so the old one is renamed out of the way first, which leaves the target missing for the
+   * moment between the two renames. When something fails, what was renamed is put back.
+   */
+  @Override
+  @SuppressWarnings("ResultOfMethodCallIgnored")
+  public void replaceWith(Resource<?> replacement) throws IOException {
+    if (!(replacement instanceof FileResource source) || source.workspace != workspace) {
+      Resource.super.replaceWith(replacement);
+      return;
+    }
+    if (!source.file.exists()) {
+      delete();
+      return;
+    }
+    file.getParentFile().mkdirs();
+    var directory = source.file.isDirectory();
+    var target = file.toPath();
+    var incoming = temporarySiblingOf(target);
+    moveInPlace(source.file.toPath(), incoming);
+    var outgoing = file.exists() ? temporarySiblingOf(target) : null;
+    try {
+      if (outgoing != null) {
+        moveInPlace(target, outgoing);
+      }
+      try {
+        moveInPlace(incoming, target);
+      } catch (IOException e) {
+        if (outgoing != null) {
+          moveInPlace(outgoing, target);
+        }
+        throw e;
+      }
+    } catch (IOException e) {
+      moveInPlace(incoming, source.file.toPath());
+      throw e;
+    }
+    if (outgoing != null) {
+      Files.delete(outgoing.toFile());
+    }
+    // Changes below the directories are reported by the directory watcher
+    workspace.fileChanged(
+        new DirectoryChangeEvent(DELETE, directory, source.file.toPath(), null, 1, null));
+    // Forget what was below the old directory
+    workspace.files.removed(file);
+    workspace.fileChanged(new DirectoryChangeEvent(CREATE, directory, target, null, 1, null));
+  }
+
+  private Path temporarySiblingOf(Path target) {
+    return target.resolveSibling(
+        ".%s.%x%s"
+            .formatted(
+                target.getFileName(), ThreadLocalRandom.current().nextLong(), TEMPORARY_SUFFIX));
+  }
+
+  private void moveInPlace(Path temporary, Path target) throws IOException {
+    for (var attempt = 1; ; attempt++) {
+      try {
+        move(temporary, target);
+        break;
+      } catch (NoSuchFileException e) {
+        throw e;
+      } catch (FileSystemException e) {
+        if (attempt == MOVE_ATTEMPTS) {
+          throw e;
+        }
+        backOff(attempt);
+      }
+    }
+    if (workspace.syncPolicy == SyncPolicy.ALWAYS) {
+      // Make the new directory entry durable too
+      try (var directory = FileChannel.open(target.getParent(), READ)) {
+        directory.force(true);
+      } catch (IOException e) {
+        // Some platforms, like Windows, can't open directories
+      }
+    }
+  }
+
+  private void move(Path source, Path target) throws IOException {
+    try {
+      java.nio.file.Files.move(source, target, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      java.nio.file.Files.move(source, target, REPLACE_EXISTING);
+    }
+  }
+
+  private void backOff(int attempt) throws InterruptedIOException {
+    try {
+      Thread.sleep(MOVE_BACKOFF_MILLIS << (attempt - 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while replacing " + file);
+    }
+  }
+
+  @Override
+  public boolean hasContent(byte[] content) {
+    // Comparing sizes first avoids reading files that obviously changed
+    return file.isFile() && file.length() == content.length && Resource.super.hasContent(content);
+  }
+
+  @Override
+  @SuppressWarnings("ResultOfMethodCallIgnored")
+  public OutputStream appendTo() throws IOException {
+    file.getParentFile().mkdirs();
+    var eventType = file.isFile() ? MODIFY : CREATE;
+    return new FileOutputStream(file, true) {
       @Override
       public void close() throws IOException {
         super.close();
-        // For some reason, the directory watcher doesn't pick up the file changes
-        workspace.fileChanged(
-            new DirectoryChangeEvent(eventType, false, file.toPath(), null, 1, null));
+        workspace.wrote(file.toPath(), eventType);
       }
     };
   }
@@ -136,7 +340,15 @@ class FileResource implements Resource<FileResource> {
 
   @Override
   public boolean exists() {
-    return file.exists();
+    if (workspace.files.exists(file).orElse(false)) {
+      return true;
+    }
+    // The directory watcher reports changes made by others with a delay
+    var result = file.exists();
+    if (result) {
+      workspace.files.added(file, file.isDirectory());
+    }
+    return result;
   }
 
   @Override
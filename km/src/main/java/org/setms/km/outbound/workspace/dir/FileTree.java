@@ -0,0 +1,269 @@
+package org.setms.km.outbound.workspace.dir;
+
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.util.function.Predicate.not;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.setms.km.domain.model.workspace.Glob;
+
+/**
+ * In-memory tree of the files in a directory, kept up to date from the changes the directory
+ * watcher reports, so that finding files doesn't have to walk the file system. The content of
+ * ignored directories directly below the root, like build output, isn't kept; questions about it
+ * return nothing, so that callers can ask the file system instead.
+ */
+@Slf4j
+class FileTree {
+
+  static final Set<String> IGNORED_DIRECTORIES = Set.of(".km", ".git", "build");
+
+  private final Path root;
+  private Node top = new Node(true);
+
+  FileTree(File root) {
+    this.root = root.toPath();
+  }
+
+  /** Build the tree from what's on the file system. */
+  synchronized void scan() {
+    top = new Node(true);
+    scan(root);
+  }
+
+  private void scan(Path directory) {
+    try {
+      java.nio.file.Files.walkFileTree(
+          directory,
+          new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+              var segments = segmentsOf(dir);
+              if (segments.isEmpty()) {
+                return CONTINUE;
+              }
+              add(segments, true);
+              return isIgnored(segments) ? SKIP_SUBTREE : CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+              if (attributes.isRegularFile()) {
+                add(segmentsOf(file), false);
+              }
+              return CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+              return CONTINUE;
+            }
+          });
+    } catch (IOException e) {
+      log.warn("Failed to scan {}", directory, e);
+    }
+  }
+
+  private List<String> segmentsOf(Path path) {
+    var result = new ArrayList<String>();
+    root.relativize(path).forEach(segment -> result.add(segment.toString()));
+    if (result.size() == 1 && result.getFirst().isEmpty()) {
+      result.clear();
+    }
+    return result;
+  }
+
+  private boolean isIgnored(List<String> segments) {
+    return segments.size() == 1 && IGNORED_DIRECTORIES.contains(segments.getFirst());
+  }
+
+  synchronized void added(File file, boolean directory) {
+    indexedSegmentsOf(file, false)
+        .ifPresent(
+            segments -> {
+              if (segments.isEmpty()) {
+                return;
+              }
+              add(segments, directory);
+              if (directory && !isIgnored(segments)) {
+                // A directory that was moved here comes with content
+                scan(file.toPath());
+              }
+            });
+  }
+
+  private void add(List<String> segments, boolean directory) {
+    var node = top;
+    for (var i = 0; i < segments.size() - 1; i++) {
+      node = node.childDirectory(segments.get(i));
+    }
+    var name = segments.getLast();
+    var existing = node.children.get(name);
+    if (existing == null || existing.isDirectory() != directory) {
+      node.children.put(name, new Node(directory));
+    }
+  }
+
+  synchronized void removed(File file) {
+    indexedSegmentsOf(file, false)
+        .ifPresent(
+            segments -> {
+              if (segments.isEmpty()) {
+                top = new Node(true);
+                return;
+              }
+              var parent = find(segments.subList(0, segments.size() - 1));
+              if (parent != null && parent.isDirectory()) {
+                parent.children.remove(segments.getLast());
+              }
+            });
+  }
+
+  /**
+   * The path of a file relative to the root, if it's in the tree.
+   *
+   * @param file the file
+   * @param asDirectory whether the content of the file, as a directory, must be in the tree
+   * @return the segments of the path, or nothing if the file is outside the root or ignored
+   */
+  private Optional<List<String>> indexedSegmentsOf(File file, boolean asDirectory) {
+    var path = file.toPath();
+    if (!path.startsWith(root)) {
+      return Optional.empty();
+    }
+    var segments = segmentsOf(path);
+    var parents = asDirectory ? segments.size() : segments.size() - 1;
+    if (parents > 0 && isIgnored(segments.subList(0, 1))) {
+      return Optional.empty();
+    }
+    return Optional.of(segments);
+  }
+
+  private Node find(List<String> segments) {
+    var result = top;
+    for (var segment : segments) {
+      if (!result.isDirectory()) {
+        return null;
+      }
+      result = result.children.get(segment);
+      if (result == null) {
+        return null;
+      }
+    }
+    return result;
+  }
+
+  private Node findOrIndex(List<String> segments, File directory) {
+    var result = find(segments);
+    if (result == null && directory.isDirectory()) {
+      // The watcher didn't tell us about this directory, so index what's on disk
+      add(segments, true);
+      scan(directory.toPath());
+      result = find(segments);
+    }
+    return result;
+  }
+
+  /**
+   * Whether a file exists.
+   *
+   * @param file the file
+   * @return whether the file exists, or nothing if the file isn't in the tree
+   */
+  synchronized Optional<Boolean> exists(File file) {
+    return indexedSegmentsOf(file, false).map(segments -> find(segments) != null);
+  }
+
+  /**
+   * The children of a directory.
+   *
+   * @param directory the directory
+   * @return the children, or nothing if the content of the directory isn't in the tree
+   */
+  synchronized Optional<List<File>> children(File directory) {
+    return indexedSegmentsOf(directory, true)
+        .map(
+            segments -> {
+              var node = findOrIndex(segments, directory);
+              if (node == null || !node.isDirectory()) {
+                return List.<File>of();
+              }
+              return node.children.keySet().stream()
+                  .map(name -> new File(directory, name))
+                  .toList();
+            });
+  }
+
+  /**
+   * The files below a directory that match a glob.
+   *
+   * @param directory the directory to search
+   * @param glob the glob to match, against the full path of files
+   * @return the matching files, or nothing if the content of the directory isn't in the tree
+   */
+  synchronized Optional<List<File>> matching(File directory, Glob glob) {
+    var globSegments = Arrays.stream(glob.path().split("/")).filter(not(String::isEmpty));
+    if (isIgnored(globSegments.limit(1).toList())) {
+      return Optional.empty();
+    }
+    return indexedSegmentsOf(directory, true)
+        .map(
+            segments -> {
+              var result = new ArrayList<File>();
+              var node = findOrIndex(segments, directory);
+              if (node != null) {
+                collectMatching(node, segments.isEmpty(), directory, glob, result);
+              }
+              return result;
+            });
+  }
+
+  private void collectMatching(Node node, boolean atRoot, File file, Glob glob, List<File> result) {
+    if (!node.isDirectory()) {
+      if (glob.matches(file.getPath())) {
+        result.add(file);
+      }
+      return;
+    }
+    node.children.forEach(
+        (name, child) -> {
+          if (!child.isDirectory() || !atRoot || !IGNORED_DIRECTORIES.contains(name)) {
+            collectMatching(child, false, new File(file, name), glob, result);
+          }
+        });
+  }
+
+  private static class Node {
+
+    private final TreeMap<String, Node> children;
+
+    Node(boolean directory) {
+      this.children = directory ? new TreeMap<>() : null;
+    }
+
+    boolean isDirectory() {
+      return children != null;
+    }
+
+    Node childDirectory(String name) {
+      var result = children.get(name);
+      if (result == null || !result.isDirectory()) {
+        result = new Node(true);
+        children.put(name, result);
+      }
+      return result;
+    }
+  }
+}
@@ -4,18 +4,24 @@ import static java.time.LocalDateTime.now;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Consumer;
 import org.setms.km.domain.model.workspace.Glob;
 import org.setms.km.domain.model.workspace.Resource;
 
 record InMemoryResource(
-    Map<String, byte[]> artifactsByPath,
+    ConcurrentNavigableMap<String, byte[]> artifactsByPath,
     Map<String, LocalDateTime> createdTimeByPath,
     Map<String, LocalDateTime> modifiedTimeByPath,
     String path,
@@ -54,54 +60,55 @@ record InMemoryResource(
       return Optional.empty();
     }
     var index = path.lastIndexOf("/");
-    if (index == 0) {
-      return Optional.of(
-          new InMemoryResource(
-              artifactsByPath,
-              createdTimeByPath,
-              modifiedTimeByPath,
-              "/",
-              pathChanged,
-              pathDeleted));
-    }
-    return Optional.of(
-        new InMemoryResource(
-            artifactsByPath,
-            createdTimeByPath,
-            modifiedTimeByPath,
-            path.substring(0, index),
-            pathChanged,
-            pathDeleted));
+    return Optional.of(resourceAt(index == 0 ? "/" : path.substring(0, index)));
   }
 
   @Override
   public List<InMemoryResource> children() {
-    return artifactsByPath.keySet().stream()
-        .filter(candidate -> candidate.startsWith(path + "/"))
-        .map(this::directChildOf)
-        .distinct()
-        .map(
-            child ->
-                new InMemoryResource(
-                    artifactsByPath,
-                    createdTimeByPath,
-                    modifiedTimeByPath,
-                    child,
-                    pathChanged,
-                    pathDeleted))
-        .toList();
+    var descendants = descendants();
+    var result = new LinkedHashSet<String>();
+    var descendant = descendants.isEmpty() ? null : descendants.firstKey();
+    while (descendant != null) {
+      var child = directChildOf(descendant);
+      result.add(child);
+      // Skip the rest of the child's descendants
+      descendant =
+          child.equals(descendant)
+              ? descendants.higherKey(descendant)
+              : descendants.ceilingKey(endOf(child + "/"));
+    }
+    return result.stream().map(this::resourceAt).toList();
+  }
+
+  /**
+   * The paths of the artifacts below this resource. Paths with the same prefix are adjacent in the
+   * sorted map, so this is a range of it.
+   */
+  private NavigableMap<String, byte[]> descendants() {
+    var prefix = path.endsWith("/") ? path : path + "/";
+    return artifactsByPath.subMap(prefix, true, endOf(prefix), false);
+  }
+
+  private static String endOf(String prefix) {
+    // The first string after all strings that start with the prefix, which ends in a separator
+    return prefix.substring(0, prefix.length() - 1) + (char) ('/' + 1);
   }
 
   private String directChildOf(String descendant) {
-    var index = descendant.indexOf("/", path.length() + 1);
+    var start = path.endsWith("/") ? path.length() : path.length() + 1;
+    var index = descendant.indexOf("/", start);
     return index < 0 ? descendant : descendant.substring(0, index);
   }
 
+  private InMemoryResource resourceAt(String path) {
+    return new InMemoryResource(
+        artifactsByPath, createdTimeByPath, modifiedTimeByPath, path, pathChanged, pathDeleted);
+  }
+
   @Override
   public InMemoryResource select(String path) {
     if (path.startsWith("/")) {
-      return new InMemoryResource(
-          artifactsByPath, createdTimeByPath, modifiedTimeByPath, path, pathChanged, pathDeleted);
+      return resourceAt(path);
     }
     var selected = this.path;
     for (var part : path.split("/")) {
@@ -115,24 +122,13 @@ record InMemoryResource(
         selected = selected.equals("/") ? selected + part : "%s/%s".formatted(selected, part);
       }
     }
-    return new InMemoryResource(
-        artifactsByPath, createdTimeByPath, modifiedTimeByPath, selected, pathChanged, pathDeleted);
+    return resourceAt(selected);
   }
 
   @Override
   public List<InMemoryResource> matching(String path, String extension) {
-    return artifactsByPath.keySet().stream()
-        .filter(Glob.of(path, extension)::matches)
-        .map(
-            match ->
-                new InMemoryResource(
-                    artifactsByPath,
-                    createdTimeByPath,
-                    modifiedTimeByPath,
-                    match,
-                    pathChanged,
-                    pathDeleted))
-        .toList();
+    var glob = Glob.of(path, extension);
+    return descendants().keySet().stream().filter(glob::matches).map(this::resourceAt).toList();
   }
 
   @Override
@@ -140,32 +136,64 @@ record InMemoryResource(
     return new ByteArrayInputStream(artifactsByPath.getOrDefault(path, EMPTY));
   }
 
+  @Override
+  public ByteBuffer readAsBuffer() {
+    // Content is replaced rather than changed, so the bytes can be shared
+    return ByteBuffer.wrap(artifactsByPath.getOrDefault(path, EMPTY)).asReadOnlyBuffer();
+  }
+
   @Override
   public OutputStream writeTo() {
     return new ByteArrayOutputStream() {
       @Override
       public void close() {
-        artifactsByPath.put(path, toByteArray());
-        var timestamp = now();
-        if (modifiedTimeByPath.put(path, timestamp) == null) {
-          createdTimeByPath.put(path, timestamp);
+        var content = toByteArray();
+        var previous = artifactsByPath.put(path, content);
+        if (!Arrays.equals(previous, content)) {
+          changed();
         }
-        pathChanged.accept(path);
       }
     };
   }
 
+  @Override
+  public OutputStream appendTo() {
+    return new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        artifactsByPath.merge(path, toByteArray(), InMemoryResource::concat);
+        changed();
+      }
+    };
+  }
+
+  private void changed() {
+    var timestamp = now();
+    if (modifiedTimeByPath.put(path, timestamp) == null) {
+      createdTimeByPath.put(path, timestamp);
+    }
+    pathChanged.accept(path);
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    var result = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+
   @Override
   public void doDelete() {
-    artifactsByPath.keySet().stream()
-        .filter(candidate -> candidate.equals(path) || candidate.startsWith(path + "/"))
-        .toList()
-        .forEach(
-            path -> {
-              artifactsByPath.remove(path);
-              modifiedTimeByPath.remove(path);
-              pathDeleted.accept(path);
-            });
+    var deleted = new ArrayList<String>();
+    if (artifactsByPath.containsKey(path)) {
+      deleted.add(path);
+    }
+    deleted.addAll(descendants().keySet());
+    deleted.forEach(
+        path -> {
+          artifactsByPath.remove(path);
+          modifiedTimeByPath.remove(path);
+          pathDeleted.accept(path);
+        });
   }
 
   @Override
@@ -180,8 +208,7 @@ record InMemoryResource(
 
   @Override
   public boolean exists() {
-    return artifactsByPath.keySet().stream()
-        .anyMatch(candidate -> candidate.equals(path) || candidate.startsWith(path + "/"));
+    return artifactsByPath.containsKey(path) || !descendants().isEmpty();
   }
 
   @Override
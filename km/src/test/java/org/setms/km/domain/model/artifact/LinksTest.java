@@ -0,0 +1,42 @@
+package org.setms.km.domain.model.artifact;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.setms.km.test.LinkingArtifact;
+
+class LinksTest {
+
+  @Test
+  void shouldFindLinksInPropertiesAttributesAndNestedArtifacts() {
+    var artifact =
+        new LinkingArtifact(new FullyQualifiedName("ape.Bear"))
+            .setTarget(
+                new Link("cheetah", "Dingo", Map.of("elephant", List.of(new Link("fox", "Gnu")))))
+            .setOthers(List.of(new Link("hyena", "Iguana")))
+            .setNested(
+                List.of(
+                    new LinkingArtifact(new FullyQualifiedName("ape.Jaguar"))
+                        .setTarget(new Link("koala", "Leopard"))));
+
+    var actual = Links.in(artifact);
+
+    assertThat(actual)
+        .containsExactlyInAnyOrder(
+            new Link("cheetah", "Dingo"),
+            new Link("fox", "Gnu"),
+            new Link("hyena", "Iguana"),
+            new Link("koala", "Leopard"));
+  }
+
+  @Test
+  void shouldFindNoLinksInArtifactWithoutLinks() {
+    var artifact = new LinkingArtifact(new FullyQualifiedName("ape.Bear"));
+
+    var actual = Links.in(artifact);
+
+    assertThat(actual).isEmpty();
+  }
+}
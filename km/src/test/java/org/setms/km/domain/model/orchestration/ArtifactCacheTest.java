@@ -0,0 +1,106 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.artifact.FullyQualifiedName;
+import org.setms.km.domain.model.workspace.Resource;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+import org.setms.km.test.MainArtifact;
+
+class ArtifactCacheTest {
+
+  private final Resource<?> root = new InMemoryWorkspace().root();
+  private final AtomicInteger parses = new AtomicInteger();
+
+  @Test
+  void shouldParseUnchangedResourceOnlyOnce() throws IOException {
+    var cache = new ArtifactCache(10);
+    var resource = store("Bear");
+
+    var first = cache.get(resource, MainArtifact.class, this::parse);
+    var second = cache.get(resource, MainArtifact.class, this::parse);
+
+    assertThat(second).isSameAs(first);
+    assertThat(parses).hasValue(1);
+    assertThat(cache.statistics()).isEqualTo(new CacheStatistics(1, 1, 0, 1));
+  }
+
+  private Resource<?> store(String name) throws IOException {
+    var result = root.select("/main/%s.mainArtifact".formatted(name));
+    try (var writer = new PrintWriter(result.writeTo())) {
+      writer.println(name);
+    }
+    return result;
+  }
+
+  private MainArtifact parse(Resource<?> resource) {
+    parses.incrementAndGet();
+    return new MainArtifact(new FullyQualifiedName("ape", resource.readAsString().trim()));
+  }
+
+  @Test
+  void shouldParseAgainWhenResourceChangedWhileParsedElsewhere()
+      throws IOException, InterruptedException {
+    var cache = new ArtifactCache(10);
+    var resource = store("Bear");
+    var modifiedAt = resource.lastModifiedAt();
+    var artifact = parse(resource);
+    Thread.sleep(5);
+    try (var writer = new PrintWriter(resource.writeTo())) {
+      writer.println("Cheetah");
+    }
+
+    cache.put(resource.path(), modifiedAt, artifact);
+    var actual = cache.get(resource, MainArtifact.class, this::parse);
+
+    assertThat(actual).isNotSameAs(artifact);
+    assertThat(parses).hasValue(2);
+  }
+
+  @Test
+  void shouldParseAgainAfterInvalidation() throws IOException {
+    var cache = new ArtifactCache(10);
+    var resource = store("Bear");
+    cache.get(resource, MainArtifact.class, this::parse);
+
+    cache.invalidate(resource.path());
+    cache.get(resource, MainArtifact.class, this::parse);
+
+    assertThat(parses).hasValue(2);
+  }
+
+  @Test
+  void shouldParseAgainWhenResourceChanged() throws IOException, InterruptedException {
+    var cache = new ArtifactCache(10);
+    var resource = store("Bear");
+    cache.get(resource, MainArtifact.class, this::parse);
+    Thread.sleep(5);
+    store("Bear");
+
+    cache.get(resource, MainArtifact.class, this::parse);
+
+    assertThat(parses).hasValue(2);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedPath() throws IOException {
+    var cache = new ArtifactCache(2);
+    var bear = store("Bear");
+    var cheetah = store("Cheetah");
+    var dingo = store("Dingo");
+    cache.get(bear, MainArtifact.class, this::parse);
+    cache.get(cheetah, MainArtifact.class, this::parse);
+    cache.get(bear, MainArtifact.class, this::parse);
+
+    cache.get(dingo, MainArtifact.class, this::parse);
+    cache.get(bear, MainArtifact.class, this::parse);
+    cache.get(cheetah, MainArtifact.class, this::parse);
+
+    assertThat(parses).hasValue(4);
+    assertThat(cache.statistics().evictions()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,35 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class CatchUpProgressTest {
+
+  @Test
+  void shouldNotEstimateRemainingTimeBeforeAnyArtifactIsValidated() {
+    var progress = new CatchUpProgress(0, 10, Duration.ofSeconds(1));
+
+    var actual = progress.estimatedRemaining();
+
+    assertThat(actual).isEmpty();
+  }
+
+  @Test
+  void shouldEstimateRemainingTimeFromElapsedTime() {
+    var progress = new CatchUpProgress(2, 10, Duration.ofSeconds(4));
+
+    var actual = progress.estimatedRemaining();
+
+    assertThat(actual).contains(Duration.ofSeconds(16));
+  }
+
+  @Test
+  void shouldBeDoneWhenAllArtifactsAreValidated() {
+    var progress = new CatchUpProgress(3, 3, Duration.ofSeconds(1));
+
+    assertThat(progress.isDone()).isTrue();
+    assertThat(progress.estimatedRemaining()).contains(Duration.ZERO);
+  }
+}
@@ -0,0 +1,53 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class CatchUpQueueTest {
+
+  private final List<String> updated = new ArrayList<>();
+
+  @Test
+  void shouldUpdateArtifactsBeforeTheirDependents() {
+    var queue = new CatchUpQueue(String::length, path -> false, () -> false);
+    queue.addAll(artifacts("/ccc", "/a", "/bb"));
+
+    queue.drain(artifact -> updated.add(artifact.path()));
+
+    assertThat(updated).containsExactly("/a", "/bb", "/ccc");
+  }
+
+  private List<OutOfDateArtifact> artifacts(String... paths) {
+    return Set.of(paths).stream().map(OutOfDateArtifact::new).toList();
+  }
+
+  @Test
+  void shouldUpdateUrgentArtifactsFirst() {
+    var queue = new CatchUpQueue(String::length, "/bb"::equals, () -> false);
+    queue.addAll(artifacts("/ccc", "/a", "/bb"));
+
+    queue.drain(artifact -> updated.add(artifact.path()));
+
+    assertThat(updated).containsExactly("/bb", "/a", "/ccc");
+  }
+
+  @Test
+  void shouldPickUpChangedUrgency() {
+    var urgent = new ArrayList<String>();
+    var queue = new CatchUpQueue(String::length, urgent::contains, () -> false);
+    queue.addAll(artifacts("/ccc", "/a", "/bb"));
+
+    queue.drain(
+        artifact -> {
+          updated.add(artifact.path());
+          urgent.add("/ccc");
+          queue.wake();
+        });
+
+    assertThat(updated).containsExactly("/a", "/ccc", "/bb");
+  }
+}
@@ -0,0 +1,65 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class CausalTraceTest {
+
+  private final CausalTrace trace = new CausalTrace();
+
+  @Test
+  void shouldNotRecordUntilStarted() {
+    trace.run("validate", "artifact changed", () -> {});
+
+    assertThat(new JSONObject(trace.toJson()).getJSONArray("traceEvents")).isEmpty();
+  }
+
+  @Test
+  void shouldNotDescribeWorkUntilStarted() {
+    var described = new AtomicBoolean();
+
+    trace.run(
+        "validate",
+        "artifact changed",
+        () -> {},
+        () -> {
+          described.set(true);
+          return new String[] {"tool", "MainTool"};
+        });
+
+    assertThat(described).isFalse();
+  }
+
+  @Test
+  void shouldLinkWorkOnOtherThreadToItsCause() {
+    trace.start();
+
+    trace.run(
+        "change",
+        "workspace change",
+        () -> {
+          var thread = Thread.ofVirtual().start(trace.inheriting(this::validate));
+          try {
+            thread.join();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+
+    var events = new JSONObject(trace.toJson()).getJSONArray("traceEvents");
+    var phases =
+        IntStream.range(0, events.length())
+            .mapToObj(events::getJSONObject)
+            .map(event -> event.getString("ph"))
+            .toList();
+    assertThat(phases).containsExactlyInAnyOrder("X", "X", "s", "f");
+  }
+
+  private void validate() {
+    trace.run("validate", "artifact changed", () -> {}, () -> new String[] {"tool", "MainTool"});
+  }
+}
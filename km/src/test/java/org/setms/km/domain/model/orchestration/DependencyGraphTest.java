@@ -0,0 +1,81 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.tool.Input;
+import org.setms.km.test.MainTool;
+import org.setms.km.test.OtherTool;
+import org.setms.km.test.StandaloneTestTool;
+
+class DependencyGraphTest {
+
+  private static final String MAIN_PATH = "/main/Bear.mainArtifact";
+  private static final String OTHER_PATH = "/other/Cheetah.otherArtifact";
+
+  private final MainTool mainTool = new MainTool();
+  private final OtherTool otherTool = new OtherTool();
+  private final StandaloneTestTool standaloneTool = new StandaloneTestTool();
+  private final Input<?> mainInput = mainTool.validationTargets().iterator().next();
+  private final Input<?> otherInput = otherTool.validationTargets().iterator().next();
+  private final DependencyGraph graph =
+      new DependencyGraph(List.of(mainTool, otherTool, standaloneTool));
+
+  @Test
+  void shouldFindTransitiveDependents() {
+    assertThat(graph.dependentInputsOf(mainInput)).containsExactly(otherInput);
+    assertThat(graph.dependentInputsOf(otherInput)).isEmpty();
+  }
+
+  @Test
+  void shouldOrderInputsByDepth() {
+    assertThat(graph.depthOf(mainInput)).as("Main depth").isZero();
+    assertThat(graph.depthOf(otherInput)).as("Other depth").isEqualTo(1);
+    assertThat(graph.depthOf(OTHER_PATH)).as("Other path depth").isEqualTo(1);
+  }
+
+  @Test
+  void shouldComputeValidationsAffectedByChange() {
+    var actual =
+        graph.validationsAffectedBy(MAIN_PATH, tool -> List.of(OTHER_PATH), Optional.empty());
+
+    assertThat(actual)
+        .containsExactly(
+            new ValidationTask(mainTool, MAIN_PATH),
+            new ValidationTask(standaloneTool, MAIN_PATH),
+            new ValidationTask(otherTool, OTHER_PATH));
+  }
+
+  @Test
+  void shouldNotRevalidateAnythingWhenNothingDependsOnChange() {
+    var actual =
+        graph.validationsAffectedBy(OTHER_PATH, tool -> List.of(MAIN_PATH), Optional.empty());
+
+    assertThat(actual).containsExactly(new ValidationTask(otherTool, OTHER_PATH));
+  }
+
+  @Test
+  void shouldOnlyRevalidateReferrersForToolThatDependsOnlyOnLinks() {
+    var linkedTool =
+        new OtherTool() {
+          @Override
+          public boolean dependsOnlyOnLinkedArtifacts() {
+            return true;
+          }
+        };
+    var linkedGraph = new DependencyGraph(List.of(mainTool, linkedTool));
+
+    var actual =
+        linkedGraph.validationsAffectedBy(
+            MAIN_PATH,
+            tool -> List.of(OTHER_PATH, "/other/Dingo.otherArtifact"),
+            Optional.of(Set.of(OTHER_PATH)));
+
+    assertThat(actual)
+        .containsExactly(
+            new ValidationTask(mainTool, MAIN_PATH), new ValidationTask(linkedTool, OTHER_PATH));
+  }
+}
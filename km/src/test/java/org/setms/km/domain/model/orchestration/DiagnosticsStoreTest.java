@@ -0,0 +1,150 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.setms.km.domain.model.validation.Level.ERROR;
+import static org.setms.km.domain.model.validation.Level.WARN;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.validation.Diagnostic;
+import org.setms.km.domain.model.validation.Suggestion;
+import org.setms.km.domain.model.workspace.Resource;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+
+class DiagnosticsStoreTest {
+
+  private static final String PATH = "/main/Bear.mainArtifact";
+  private static final String TOOL = "MainTool";
+
+  private final Resource<?> root = new InMemoryWorkspace().root();
+  private final Diagnostic error = new Diagnostic(ERROR, "Broken");
+  private final Diagnostic warning =
+      new Diagnostic(WARN, "Smelly", null, new Suggestion("fix", "Fix it"));
+
+  @Test
+  void shouldQueryStoredDiagnostics() {
+    var store = new DiagnosticsStore(root);
+
+    store.store(PATH, TOOL, List.of(error, warning));
+    store.publish();
+
+    var published = store.published();
+    assertThat(published.diagnosticsFor(PATH)).containsExactly(error, warning);
+    assertThat(published.diagnostics(ERROR)).containsExactly(error);
+    assertThat(published.withSuggestions()).containsExactly(warning);
+    assertThat(store.pathsWithDiagnosticsFor(TOOL)).containsExactly(PATH);
+    assertThat(store.lastValidated(PATH)).isPresent();
+  }
+
+  @Test
+  void shouldOnlyShowPublishedDiagnosticsToReaders() {
+    var store = new DiagnosticsStore(root);
+    store.store(PATH, TOOL, List.of(error));
+    var published = store.published();
+
+    store.publish();
+
+    assertThat(published.diagnosticsFor(PATH)).as("Before publishing").isEmpty();
+    assertThat(store.published().diagnosticsFor(PATH)).as("After publishing").contains(error);
+    assertThat(store.published().diagnostics(ERROR)).containsExactly(error);
+  }
+
+  @Test
+  void shouldOnlyReplaceChangedPathsWhenPublishing() {
+    var store = new DiagnosticsStore(root);
+    var otherPath = "/main/Cheetah.mainArtifact";
+    store.store(PATH, TOOL, List.of(error));
+    store.store(otherPath, TOOL, List.of(error));
+    store.publish();
+    var unchanged = store.published().diagnosticsFor(otherPath);
+
+    store.store(PATH, TOOL, List.of(warning));
+    store.publish();
+
+    assertThat(store.published().diagnosticsFor(PATH)).containsExactly(warning);
+    assertThat(store.published().diagnosticsFor(otherPath)).isSameAs(unchanged);
+    assertThat(store.published().all()).containsExactlyInAnyOrder(error, warning);
+  }
+
+  @Test
+  void shouldStopPublishingRemovedDiagnostics() {
+    var store = new DiagnosticsStore(root);
+    store.store(PATH, TOOL, List.of(error));
+    store.publish();
+
+    store.removeAll(PATH);
+    store.publish();
+
+    assertThat(store.published().diagnosticsFor(PATH)).isEmpty();
+    assertThat(store.published().all()).isEmpty();
+  }
+
+  @Test
+  void shouldLoadStoredDiagnostics() {
+    var store = new DiagnosticsStore(root);
+    store.store(PATH, TOOL, List.of(error));
+    store.store(PATH, "OtherTool", List.of(warning));
+    store.remove(PATH, "OtherTool");
+    store.publish();
+
+    var actual = new DiagnosticsStore(root);
+
+    assertThat(actual.published().all()).containsExactly(error);
+    assertThat(actual.lastValidated(PATH)).isEqualTo(store.lastValidated(PATH));
+  }
+
+  @Test
+  void shouldWriteChangesWhenPublishing() {
+    var store = new DiagnosticsStore(root);
+    store.store(PATH, TOOL, List.of(error));
+    var changeLog = root.select(DiagnosticsStore.LOG_PATH);
+    assertThat(changeLog.exists()).as("Written before publishing").isFalse();
+
+    store.publish();
+
+    assertThat(changeLog.readAsString()).contains("Broken");
+  }
+
+  @Test
+  void shouldRemoveDiagnosticsAtAndBelowPath() {
+    var store = new DiagnosticsStore(root);
+    store.store(PATH, TOOL, List.of(error));
+    store.store("/main/Bear.mainArtifact/nested", TOOL, List.of(error));
+    store.store("/main/Bear.mainArtifactory", TOOL, List.of(warning));
+
+    store.removeAll(PATH);
+
+    assertThat(store.pathsWithDiagnosticsFor(TOOL)).containsExactly("/main/Bear.mainArtifactory");
+  }
+
+  @Test
+  void shouldCompactLog() {
+    var store = new DiagnosticsStore(root);
+
+    for (var i = 0; i < 1_500; i++) {
+      store.store(PATH, TOOL, List.of(error));
+    }
+    store.publish();
+
+    assertThat(root.select(DiagnosticsStore.LOG_PATH).readAsString().lines().count())
+        .isLessThan(1_000);
+    assertThat(new DiagnosticsStore(root).published().all()).containsExactly(error);
+  }
+
+  @Test
+  void shouldMigrateDiagnosticsStoredPerFile() throws IOException {
+    var legacy = root.select(".km/diagnostics%s/%s.json".formatted(PATH, TOOL));
+    legacy.writeAsString(
+        """
+        { "diagnostics": [ { "level": "ERROR", "message": "Broken" } ] }
+        """);
+    var modifiedAt = legacy.lastModifiedAt();
+
+    var store = new DiagnosticsStore(root);
+
+    assertThat(store.published().diagnosticsFor(PATH)).containsExactly(error);
+    assertThat(store.lastValidated(PATH)).contains(modifiedAt);
+    assertThat(legacy.exists()).as("Legacy diagnostics exist").isFalse();
+  }
+}
@@ -0,0 +1,100 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GenerationsTest {
+
+  private static final String PATH = "/main/Bear.mainArtifact";
+
+  private final Generations generations = new Generations();
+
+  @Test
+  void shouldSupersedeWorkForOlderGeneration() {
+    generations.changed(List.of(PATH), 1);
+
+    generations.changed(List.of(PATH), 2);
+
+    assertThat(generations.isSuperseded(PATH, 1)).as("Older generation superseded").isTrue();
+    assertThat(generations.isSuperseded(PATH, 2)).as("Newer generation superseded").isFalse();
+  }
+
+  @Test
+  void shouldSupersedeWorkForPathsOnlyWhenAllAreSuperseded() {
+    generations.changed(List.of(PATH, "/other"), 1);
+
+    generations.changed(List.of(PATH), 2);
+
+    assertThat(generations.areSuperseded(List.of(PATH, "/other"), 1)).isFalse();
+  }
+
+  @Test
+  void shouldNotStoreStaleResult() {
+    var stored = new ArrayList<Long>();
+    generations.storeIfCurrent(PATH, 2, () -> stored.add(2L));
+
+    var actual = generations.storeIfCurrent(PATH, 1, () -> stored.add(1L));
+
+    assertThat(actual).as("Stored").isFalse();
+    assertThat(stored).containsExactly(2L);
+  }
+
+  @Test
+  void shouldForgetDeletedPaths() {
+    var key = List.of(PATH, "MainTool");
+    generations.changed(List.of(PATH), 1);
+    generations.storeIfCurrent(key, 1, () -> {});
+    generations.changed(List.of(PATH), 2);
+    generations.deleted(List.of(PATH), 2);
+
+    generations.forgetDeleted();
+
+    assertThat(generations.isSuperseded(PATH, 1)).as("Superseded").isFalse();
+    assertThat(generations.storeIfCurrent(key, 0, () -> {})).as("Stored").isTrue();
+  }
+
+  @Test
+  void shouldRememberPathsChangedAgainAfterDeletion() {
+    generations.changed(List.of(PATH), 1);
+    generations.deleted(List.of(PATH), 1);
+    generations.changed(List.of(PATH), 2);
+
+    generations.forgetDeleted();
+
+    assertThat(generations.isSuperseded(PATH, 1)).isTrue();
+  }
+
+  @Test
+  void shouldRememberDeletedPathsWhileOlderWorkIsRunning() {
+    var older = generations.begin(() -> 1);
+    generations.changed(List.of(PATH), older);
+    generations.changed(List.of(PATH), 2);
+    generations.deleted(List.of(PATH), 2);
+
+    generations.forgetDeleted();
+
+    assertThat(generations.isSuperseded(PATH, older)).as("Superseded while running").isTrue();
+    generations.end(older);
+    generations.forgetDeleted();
+    assertThat(generations.isSuperseded(PATH, older)).as("Superseded when done").isFalse();
+  }
+
+  @Test
+  void shouldRememberDeletedPathsUntilTrackedWorkIsDone() {
+    var older = generations.begin(() -> 1);
+    var work = generations.track(older, () -> {});
+    generations.end(older);
+    generations.changed(List.of(PATH), 2);
+    generations.deleted(List.of(PATH), 2);
+
+    generations.forgetDeleted();
+
+    assertThat(generations.isSuperseded(PATH, older)).as("Superseded while waiting").isTrue();
+    work.run();
+    generations.forgetDeleted();
+    assertThat(generations.isSuperseded(PATH, older)).as("Superseded when done").isFalse();
+  }
+}
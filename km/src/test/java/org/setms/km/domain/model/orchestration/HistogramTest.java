@@ -0,0 +1,32 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+  private final Histogram histogram = new Histogram();
+
+  @Test
+  void shouldBeEmptyInitially() {
+    var actual = histogram.snapshot();
+
+    assertThat(actual).isEqualTo(Distribution.EMPTY);
+  }
+
+  @Test
+  void shouldSummarizeRecordedValues() {
+    for (var i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+
+    var actual = histogram.snapshot();
+
+    assertThat(actual.count()).as("Count").isEqualTo(100);
+    assertThat(actual.total()).as("Total").isEqualTo(5_050);
+    assertThat(actual.max()).as("Max").isEqualTo(100);
+    assertThat(actual.p50()).as("p50").isBetween(50L, 63L);
+    assertThat(actual.p99()).as("p99").isEqualTo(100);
+  }
+}
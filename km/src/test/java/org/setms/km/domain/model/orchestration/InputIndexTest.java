@@ -0,0 +1,69 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.tool.Input;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+import org.setms.km.test.MainTool;
+import org.setms.km.test.OtherTool;
+
+class InputIndexTest {
+
+  private final Input<?> mainInput = new MainTool().validationTargets().iterator().next();
+  private final Input<?> otherInput = new OtherTool().validationTargets().iterator().next();
+  private final InputIndex index = new InputIndex();
+
+  @Test
+  void shouldAddPathToMatchingInputsOnly() {
+    index.register(mainInput);
+    index.register(otherInput);
+
+    var changed = index.add("/main/Bear.mainArtifact");
+
+    assertThat(changed).as("Changed").isTrue();
+    assertThat(index.pathsFor(mainInput)).containsExactly("/main/Bear.mainArtifact");
+    assertThat(index.pathsFor(otherInput)).isEmpty();
+  }
+
+  @Test
+  void shouldNotChangeWhenRemovingUnknownPath() {
+    index.register(mainInput);
+
+    var changed = index.remove("/main/Bear.mainArtifact");
+
+    assertThat(changed).as("Changed").isFalse();
+  }
+
+  @Test
+  void shouldRoundTripThroughSnapshot() throws IOException {
+    var snapshot = new InMemoryWorkspace().root().select("/inputs.snapshot");
+    index.register(mainInput);
+    index.add("/main/Bear.mainArtifact");
+    index.add("/main/Cheetah.mainArtifact");
+    index.save(snapshot);
+    var loaded = new InputIndex();
+    loaded.register(mainInput);
+
+    var success = loaded.load(snapshot);
+
+    assertThat(success).as("Loaded").isTrue();
+    assertThat(loaded.pathsFor(mainInput))
+        .containsExactly("/main/Bear.mainArtifact", "/main/Cheetah.mainArtifact");
+  }
+
+  @Test
+  void shouldRejectSnapshotThatMissesRegisteredInput() throws IOException {
+    var snapshot = new InMemoryWorkspace().root().select("/inputs.snapshot");
+    index.register(mainInput);
+    index.save(snapshot);
+    var loaded = new InputIndex();
+    loaded.register(mainInput);
+    loaded.register(otherInput);
+
+    var success = loaded.load(snapshot);
+
+    assertThat(success).as("Loaded").isFalse();
+  }
+}
@@ -0,0 +1,100 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.workspace.Resource;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+
+class ManifestTest {
+
+  private static final SortedSet<String> TOOLS = new TreeSet<>(List.of("MainTool"));
+
+  private final Resource<?> root = new InMemoryWorkspace().root();
+
+  @Test
+  void shouldConsiderUnknownArtifactOutOfDate() throws IOException {
+    var manifest = new Manifest(root);
+
+    var actual = manifest.isOutOfDate(store("Bear"), TOOLS);
+
+    assertThat(actual).isTrue();
+  }
+
+  private Resource<?> store(String content) throws IOException {
+    var result = root.select("/main/Bear.mainArtifact");
+    result.writeAsString(content);
+    return result;
+  }
+
+  @Test
+  void shouldNotConsiderValidatedArtifactOutOfDate() throws IOException {
+    var manifest = new Manifest(root);
+    var resource = store("Bear");
+    manifest.validated(resource, TOOLS, manifest.nextGeneration());
+
+    var actual = new Manifest(root).isOutOfDate(resource, TOOLS);
+
+    assertThat(actual).isFalse();
+  }
+
+  @Test
+  void shouldNotConsiderArtifactWithSameContentOutOfDate()
+      throws IOException, InterruptedException {
+    var manifest = new Manifest(root);
+    manifest.validated(store("Bear"), TOOLS, manifest.nextGeneration());
+    Thread.sleep(5);
+
+    var actual = manifest.isOutOfDate(store("Bear"), TOOLS);
+
+    assertThat(actual).isFalse();
+  }
+
+  @Test
+  void shouldConsiderChangedArtifactOutOfDate() throws IOException, InterruptedException {
+    var manifest = new Manifest(root);
+    manifest.validated(store("Bear"), TOOLS, manifest.nextGeneration());
+    Thread.sleep(5);
+
+    var actual = manifest.isOutOfDate(store("Cheetah"), TOOLS);
+
+    assertThat(actual).isTrue();
+  }
+
+  @Test
+  void shouldConsiderArtifactValidatedByOtherToolsOutOfDate() throws IOException {
+    var manifest = new Manifest(root);
+    var resource = store("Bear");
+    manifest.validated(resource, TOOLS, manifest.nextGeneration());
+
+    var actual = manifest.isOutOfDate(resource, new TreeSet<>());
+
+    assertThat(actual).isTrue();
+  }
+
+  @Test
+  void shouldForgetRemovedArtifact() throws IOException {
+    var manifest = new Manifest(root);
+    var resource = store("Bear");
+    manifest.validated(resource, TOOLS, manifest.nextGeneration());
+
+    manifest.remove(resource.path());
+
+    assertThat(new Manifest(root).paths()).isEmpty();
+  }
+
+  @Test
+  void shouldContinueGenerationsAfterLoading() throws IOException {
+    var manifest = new Manifest(root);
+    manifest.validated(store("Bear"), TOOLS, manifest.nextGeneration());
+    manifest.validated(store("Cheetah"), TOOLS, manifest.nextGeneration());
+
+    var actual = new Manifest(root).nextGeneration();
+
+    assertThat(actual).isEqualTo(3);
+  }
+}
@@ -0,0 +1,48 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class PersistentMapTest {
+
+  @Test
+  void shouldKeepPreviousVersion() {
+    var previous = PersistentMap.<String, String>empty().with("ape", "bear");
+
+    var current = previous.with("ape", "cheetah").with("dingo", "elephant");
+
+    assertThat(previous.get("ape")).isEqualTo("bear");
+    assertThat(previous.get("dingo")).isNull();
+    assertThat(current.get("ape")).isEqualTo("cheetah");
+    assertThat(current.get("dingo")).isEqualTo("elephant");
+    assertThat(current.size()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldRemoveKey() {
+    var map = PersistentMap.<String, String>empty().with("ape", "bear").with("cheetah", "dingo");
+
+    var actual = map.with("ape", null);
+
+    assertThat(actual.get("ape")).isNull();
+    assertThat(actual.size()).isEqualTo(1);
+    assertThat(actual.values()).containsExactly("dingo");
+    assertThat(actual.with("ape", null)).isSameAs(actual);
+  }
+
+  @Test
+  void shouldHoldManyKeys() {
+    var map = PersistentMap.<Integer, Integer>empty();
+
+    for (var i = 0; i < 100_000; i++) {
+      map = map.with(i, -i);
+    }
+
+    assertThat(map.size()).isEqualTo(100_000);
+    assertThat(map.get(54_321)).isEqualTo(-54_321);
+    assertThat(map.values().mapToLong(Integer::longValue).sum())
+        .isEqualTo(-LongStream.range(0, 100_000).sum());
+  }
+}
@@ -1,16 +1,22 @@
 package org.setms.km.domain.model.orchestration;
 
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.setms.km.domain.model.validation.Level.*;
 
 import java.io.*;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.setms.km.domain.model.artifact.Artifact;
@@ -117,6 +123,102 @@ class ProcessOrchestratorTest {
     assertThat(processOrchestrator.mainReportFor(path).name()).isEqualTo("report1");
   }
 
+  @Test
+  void shouldProcessCoalescedChangesWhenFlushed() throws IOException {
+    createProcessOrchestrator();
+    mainTool.init();
+    otherTool.init();
+    workspace.coalesceChangesWithin(Duration.ofMinutes(1));
+    storeNewMainArtifact();
+    assertThat(mainTool.validated).as("main validated before flush").isFalse();
+
+    workspace.flushChanges();
+
+    assertThat(mainTool.validated).as("main validated").isTrue();
+    assertThat(mainTool.built).as("main built").isTrue();
+  }
+
+  @Test
+  void shouldNotRevalidateArtifactRewrittenWithSameContent() throws IOException {
+    storeNewMainArtifact();
+    createProcessOrchestrator();
+    await().atMost(MAX_BACKGROUND_VALIDATION_TIME).until(() -> mainTool.validated);
+    mainTool.init();
+
+    storeNewMainArtifact();
+
+    assertThat(mainTool.validated).as("main validated").isFalse();
+  }
+
+  @Test
+  void shouldCollectMetrics() throws IOException {
+    createProcessOrchestrator();
+
+    storeNewMainArtifact();
+
+    var actual = processOrchestrator.metrics();
+    assertThat(actual.validationByTool())
+        .as("Validations")
+        .hasEntrySatisfying(
+            MainTool.class.getName(),
+            latency -> assertThat(latency.count()).as("# validations").isPositive());
+    assertThat(actual.reportingByTool()).as("Reports").containsKey(MainTool.class.getName());
+    assertThat(actual.cascadesPerChange().count()).as("# changes").isPositive();
+    assertThat(processOrchestrator.dumpMetrics().readAsString())
+        .as("Dumped metrics")
+        .contains(MainTool.class.getName());
+  }
+
+  @Test
+  void shouldTraceWorkCausedByChange() throws IOException {
+    createProcessOrchestrator();
+    processOrchestrator.startTracing();
+
+    storeNewMainArtifact();
+
+    var events =
+        new JSONObject(processOrchestrator.stopTracing().readAsString())
+            .getJSONArray("traceEvents");
+    var spans =
+        IntStream.range(0, events.length())
+            .mapToObj(events::getJSONObject)
+            .filter(event -> "X".equals(event.getString("ph")))
+            .toList();
+    var change =
+        spans.stream()
+            .filter(span -> "change".equals(span.getString("name")))
+            .findFirst()
+            .orElseThrow();
+    assertThat(spans)
+        .as("Validation caused by change")
+        .anySatisfy(
+            span -> {
+              assertThat(span.getString("name")).isEqualTo("validate");
+              var args = span.getJSONObject("args");
+              assertThat(args.getString("tool")).isEqualTo(MainTool.class.getName());
+              assertThat(args.getLong("causedBy"))
+                  .isEqualTo(change.getJSONObject("args").getLong("id"));
+            });
+  }
+
+  @Test
+  void shouldApplyChangesToSeveralArtifactsAtOnce() throws IOException {
+    var mainPath = storeNewMainArtifact();
+    var otherPath = storeNewArtifact(otherTool, OtherArtifact::new);
+    createProcessOrchestrator();
+    await()
+        .atMost(MAX_BACKGROUND_VALIDATION_TIME)
+        .until(() -> mainTool.validated && otherTool.validated);
+    mainTool.init();
+    otherTool.init();
+
+    processOrchestrator.applyChanges(List.of(mainPath, otherPath), List.of());
+
+    assertThat(mainTool.validated).as("main validated").isTrue();
+    assertThat(mainTool.built).as("main built").isTrue();
+    assertThat(otherTool.validated).as("other validated").isTrue();
+  }
+
   @Test
   void shouldUpdateCachedGlobsWhenMatchingArtifactCreated() throws IOException {
     createProcessOrchestrator();
@@ -126,17 +228,9 @@ class ProcessOrchestratorTest {
     assertThat(inputsForMainTool()).hasSize(1).containsExactlyInAnyOrder(path);
   }
 
-  private List<String> inputsForMainTool() throws IOException {
+  private Collection<String> inputsForMainTool() {
     var input = mainTool.validationTargets().iterator().next();
-    var globPaths =
-        workspace
-            .root()
-            .select(
-                ".km/inputs/%s/%s/%s.paths"
-                    .formatted(input.name(), input.path(), input.extension()));
-    try (var reader = new BufferedReader(new InputStreamReader(globPaths.readFrom()))) {
-      return reader.lines().toList();
-    }
+    return processOrchestrator.pathsMatching(input);
   }
 
   @Test
@@ -150,6 +244,28 @@ class ProcessOrchestratorTest {
     assertThat(inputsForMainTool()).isEmpty();
   }
 
+  @Test
+  void shouldLoadCachedGlobsFromSnapshot() throws IOException {
+    var path = storeNewMainArtifact();
+    createProcessOrchestrator();
+    assertThat(workspace.root().select(".km/inputs.snapshot").exists())
+        .as("Snapshot stored")
+        .isTrue();
+
+    createProcessOrchestrator();
+
+    assertThat(inputsForMainTool()).containsExactly(path);
+  }
+
+  @Test
+  void shouldSaveInputIndexAfterChanges() throws IOException {
+    createProcessOrchestrator();
+
+    var path = storeNewMainArtifact();
+
+    assertThat(workspace.root().select(".km/inputs.snapshot").readAsString()).contains(path);
+  }
+
   @Test
   void shouldStoreValidationDiagnostics() throws IOException {
     createProcessOrchestrator();
@@ -233,6 +349,48 @@ class ProcessOrchestratorTest {
             () -> assertThat(mainTool.validated).as("Existing artifact validated").isTrue());
   }
 
+  @Test
+  void shouldReportProgressOfValidatingExistingArtifacts() throws IOException {
+    storeNewMainArtifact();
+    storeNewOtherArtifact();
+
+    createProcessOrchestrator();
+
+    await()
+        .atMost(MAX_BACKGROUND_VALIDATION_TIME)
+        .untilAsserted(
+            () ->
+                assertThat(processOrchestrator.catchUpProgress())
+                    .satisfies(progress -> assertThat(progress.isDone()).isTrue())
+                    .satisfies(progress -> assertThat(progress.completed()).isEqualTo(2)));
+  }
+
+  @Test
+  void shouldReportProgressOfValidatingOnlyExistingArtifactsThatAreCaughtUp() throws IOException {
+    storeNewMainArtifact();
+    storeNewOtherArtifact();
+
+    processOrchestrator =
+        new ProcessOrchestrator(workspace) {
+          @Override
+          protected void validateExistingArtifacts() {
+            catchUp(
+                outOfDateArtifacts().stream()
+                    .filter(artifact -> artifact.path().startsWith("/main"))
+                    .toList(),
+                this::updateOutOfDateArtifact);
+          }
+        };
+
+    await()
+        .atMost(MAX_BACKGROUND_VALIDATION_TIME)
+        .untilAsserted(
+            () ->
+                assertThat(processOrchestrator.catchUpProgress())
+                    .satisfies(progress -> assertThat(progress.isDone()).isTrue())
+                    .satisfies(progress -> assertThat(progress.total()).isEqualTo(1)));
+  }
+
   @Test
   void shouldNotValidateExistingArtifactIfItHasntChanged()
       throws IOException, InterruptedException {
@@ -265,6 +423,52 @@ class ProcessOrchestratorTest {
     assertThat(otherTool.validated).as("Existing artifact re-validated").isTrue();
   }
 
+  @Test
+  void shouldNotStoreDiagnosticsOfArtifactDeletedWhileRevalidatingIt() throws Exception {
+    var blocking = new AtomicBoolean();
+    var validating = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var blockingTool =
+        new OtherTool() {
+          @Override
+          public void validate(
+              OtherArtifact artifact, ResolvedInputs inputs, Collection<Diagnostic> diagnostics) {
+            if (blocking.get()) {
+              validating.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              diagnostics.add(new Diagnostic(WARN, "Stale"));
+            }
+          }
+        };
+    Tools.reload();
+    Tools.add(mainTool);
+    Tools.add(blockingTool);
+    createProcessOrchestrator();
+    var otherPath = storeNewArtifact(blockingTool, OtherArtifact::new);
+    blocking.set(true);
+    var changing =
+        new Thread(
+            () -> {
+              try {
+                storeNewMainArtifact();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    changing.start();
+    assertThat(validating.await(1, SECONDS)).as("Revalidating").isTrue();
+
+    workspace.root().select(otherPath).delete();
+    release.countDown();
+    changing.join();
+
+    assertThat(processOrchestrator.diagnosticsFor(otherPath)).isEmpty();
+  }
+
   private void storeNewOtherArtifact() throws IOException {
     storeNewArtifact(otherTool, OtherArtifact::new);
   }
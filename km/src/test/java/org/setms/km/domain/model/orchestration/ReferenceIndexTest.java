@@ -0,0 +1,67 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.artifact.FullyQualifiedName;
+import org.setms.km.domain.model.artifact.Link;
+import org.setms.km.test.LinkingArtifact;
+
+class ReferenceIndexTest {
+
+  private static final String BEAR_PATH = "/linking/Bear.linkingArtifact";
+  private static final String CHEETAH_PATH = "/linking/Cheetah.linkingArtifact";
+
+  private final ReferenceIndex index = new ReferenceIndex();
+
+  @Test
+  void shouldFindReferrers() {
+    index.update(BEAR_PATH, linking("Bear", new Link("linkingArtifact", "Cheetah")));
+    index.update(CHEETAH_PATH, linking("Cheetah"));
+
+    assertThat(index.referrersOf(new Link("linkingArtifact", "Cheetah")))
+        .containsExactly(BEAR_PATH);
+    assertThat(index.referrersOfArtifactAt(CHEETAH_PATH)).containsExactly(BEAR_PATH);
+    assertThat(index.referrersOfArtifactAt(BEAR_PATH)).isEmpty();
+  }
+
+  private LinkingArtifact linking(String name, Link... others) {
+    return new LinkingArtifact(new FullyQualifiedName("ape", name)).setOthers(List.of(others));
+  }
+
+  @Test
+  void shouldFindTargets() {
+    index.update(BEAR_PATH, linking("Bear", new Link(null, "Cheetah")));
+    index.update(CHEETAH_PATH, linking("Cheetah"));
+
+    assertThat(index.targetsOfArtifactAt(BEAR_PATH)).containsExactly(CHEETAH_PATH);
+    assertThat(index.targetsOfArtifactAt(CHEETAH_PATH)).isEmpty();
+  }
+
+  @Test
+  void shouldTreatUntypedLinkAsPointingToAnyType() {
+    index.update(BEAR_PATH, linking("Bear", new Link(null, "Cheetah")));
+
+    assertThat(index.referrersOf(new Link("linkingArtifact", "Cheetah")))
+        .containsExactly(BEAR_PATH);
+  }
+
+  @Test
+  void shouldForgetReferencesThatWereRemoved() {
+    index.update(BEAR_PATH, linking("Bear", new Link("linkingArtifact", "Cheetah")));
+
+    index.update(BEAR_PATH, linking("Bear"));
+
+    assertThat(index.referrersOf(new Link("linkingArtifact", "Cheetah"))).isEmpty();
+  }
+
+  @Test
+  void shouldForgetDeletedArtifact() {
+    index.update(BEAR_PATH, linking("Bear", new Link("linkingArtifact", "Cheetah")));
+
+    index.remove(BEAR_PATH);
+
+    assertThat(index.referrersOf(new Link("linkingArtifact", "Cheetah"))).isEmpty();
+  }
+}
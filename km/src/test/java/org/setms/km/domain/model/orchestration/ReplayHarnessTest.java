@@ -0,0 +1,93 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.setms.km.domain.model.orchestration.RecordedChange.Operation.CHANGED;
+import static org.setms.km.domain.model.orchestration.RecordedChange.Operation.DELETED;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.setms.km.domain.model.artifact.FullyQualifiedName;
+import org.setms.km.domain.model.tool.Tools;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+import org.setms.km.test.MainArtifact;
+import org.setms.km.test.MainTool;
+
+class ReplayHarnessTest {
+
+  private final MainTool mainTool = new MainTool();
+
+  @BeforeEach
+  void init() {
+    Tools.reload();
+    Tools.add(mainTool);
+  }
+
+  @Test
+  void shouldRecordAndReplayChanges(@TempDir File directory) throws Exception {
+    var recording = new File(directory, "session.jsonl");
+    var path = recordSession(recording);
+
+    var changes = ChangeRecorder.load(recording);
+    var actual =
+        new ReplayHarness(InMemoryWorkspace::new, ProcessOrchestrator::new).replay(changes);
+
+    assertThat(changes).map(RecordedChange::operation).containsExactly(CHANGED, DELETED);
+    assertThat(changes).map(RecordedChange::path).containsOnly(path);
+    assertThat(actual.changes()).isEqualTo(2);
+    assertThat(actual.timeToDiagnosticsP99()).isGreaterThanOrEqualTo(actual.timeToDiagnosticsP50());
+    assertThat(actual.changesPerSecond()).isPositive();
+  }
+
+  private String recordSession(File recording) throws IOException {
+    var workspace = new InMemoryWorkspace();
+    try (var ignored = new ChangeRecorder(workspace, recording)) {
+      var input = mainTool.validationTargets().iterator().next();
+      var resource = workspace.root().select(input.path()).select("Bear." + input.extension());
+      try (var output = resource.writeTo()) {
+        input
+            .format()
+            .newBuilder()
+            .build(new MainArtifact(new FullyQualifiedName("ape.Bear")), output);
+      }
+      resource.delete();
+      return resource.path();
+    }
+  }
+
+  @Test
+  void shouldReportRegressions() {
+    var baseline = report(Duration.ofSeconds(1), 1_000, 10);
+
+    var actual = report(Duration.ofSeconds(2), 1_050, 20).regressionsComparedTo(baseline, 0.1);
+
+    assertThat(actual).hasSize(2);
+  }
+
+  private ReplayReport report(Duration elapsed, long timeToDiagnostics, long parses) {
+    return new ReplayReport(10, elapsed, timeToDiagnostics, timeToDiagnostics, parses);
+  }
+
+  @Test
+  void shouldComputeExactPercentiles() {
+    var values = LongStream.rangeClosed(1, 200).toArray();
+
+    assertThat(ReplayHarness.percentile(values, 50)).isEqualTo(100);
+    assertThat(ReplayHarness.percentile(values, 99)).isEqualTo(198);
+    assertThat(ReplayHarness.percentile(new long[] {7}, 99)).isEqualTo(7);
+  }
+
+  @Test
+  void shouldReadReportWrittenAsJson() {
+    var report = report(Duration.ofSeconds(1), 1_000, 10);
+
+    var actual = ReplayReport.fromJson(report.toJson());
+
+    assertThat(actual.regressionsComparedTo(report, 0)).isEmpty();
+    assertThat(report.regressionsComparedTo(actual, 0)).isEmpty();
+  }
+}
@@ -0,0 +1,40 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.workspace.Resource;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+
+class ReportStagingTest {
+
+  private final Resource<?> root = new InMemoryWorkspace().root();
+  private final ReportStaging staging = new ReportStaging(root);
+  private final Resource<?> target = root.select(".km/reports/main/Bear.mainArtifact");
+
+  @Test
+  void shouldReplacePublishedReportsWithStagedOnes() throws IOException {
+    target.select("tool/old.html").writeAsString("old");
+    target.select("tool/same.html").writeAsString("previous");
+    var staged = staging.stageFor(1, "/main/Bear.mainArtifact");
+    staged.select("tool/same.html").writeAsString("current");
+    staged.select("tool/new/diagram.png").writeAsString("image");
+
+    staging.publish(staged, target);
+
+    assertThat(target.select("tool/old.html").exists()).as("Old report exists").isFalse();
+    assertThat(target.select("tool/same.html").readAsString()).isEqualTo("current");
+    assertThat(target.select("tool/new/diagram.png").readAsString()).isEqualTo("image");
+    assertThat(staged.exists()).as("Staged reports exist").isFalse();
+  }
+
+  @Test
+  void shouldDiscardLeftoverStagedReports() throws IOException {
+    staging.stageFor(1, "/main/Bear.mainArtifact").select("report.html").writeAsString("report");
+
+    new ReportStaging(root);
+
+    assertThat(root.select(ReportStaging.PATH).exists()).as("Staged reports exist").isFalse();
+  }
+}
@@ -0,0 +1,54 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.setms.km.domain.model.artifact.Artifact;
+import org.setms.km.domain.model.artifact.FullyQualifiedName;
+import org.setms.km.domain.model.tool.Input;
+import org.setms.km.test.MainArtifact;
+import org.setms.km.test.MainTool;
+
+class ResolvedInputCacheTest {
+
+  private final ResolvedInputCache cache = new ResolvedInputCache();
+  private final Input<?> input = new MainTool().validationTargets().iterator().next();
+  private final AtomicInteger resolutions = new AtomicInteger();
+
+  private List<? extends Artifact> resolve(Input<?> ignored) {
+    resolutions.incrementAndGet();
+    return List.of(new MainArtifact(new FullyQualifiedName("ape.Bear")));
+  }
+
+  @Test
+  void shouldResolveInputOnce() {
+    var first = cache.get(input, this::resolve);
+
+    var second = cache.get(input, this::resolve);
+
+    assertThat(second).isSameAs(first);
+    assertThat(resolutions).hasValue(1);
+  }
+
+  @Test
+  void shouldResolveInputAgainWhenMatchingArtifactChanges() {
+    cache.get(input, this::resolve);
+
+    cache.invalidate(List.of("/%s/Bear.%s".formatted(input.path(), input.extension())));
+
+    cache.get(input, this::resolve);
+    assertThat(resolutions).hasValue(2);
+  }
+
+  @Test
+  void shouldKeepResolvedInputWhenOtherArtifactChanges() {
+    cache.get(input, this::resolve);
+
+    cache.invalidate(List.of("/other/Bear.otherArtifact"));
+
+    cache.get(input, this::resolve);
+    assertThat(resolutions).hasValue(1);
+  }
+}
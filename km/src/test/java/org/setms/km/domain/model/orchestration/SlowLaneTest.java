@@ -0,0 +1,94 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.setms.km.test.MainTool;
+
+class SlowLaneTest {
+
+  private static final String KEY = "/main/Bear.mainArtifact";
+
+  private final AtomicInteger published = new AtomicInteger();
+  private final SlowLane lane =
+      new SlowLane(1, Duration.ofMillis(100), published::incrementAndGet);
+
+  @Test
+  void shouldOnlyRunLatestWaitingWork() throws InterruptedException {
+    var started = new CountDownLatch(1);
+    var proceed = new CountDownLatch(1);
+    var done = new CopyOnWriteArrayList<Integer>();
+    lane.submit(
+        KEY,
+        () -> {
+          started.countDown();
+          awaitQuietly(proceed);
+          done.add(1);
+        });
+    started.await();
+
+    lane.submit(KEY, () -> done.add(2));
+    lane.submit(KEY, () -> done.add(3));
+    proceed.countDown();
+    lane.awaitIdle();
+
+    assertThat(done).containsExactly(1, 3);
+    assertThat(published).hasValue(2);
+  }
+
+  private void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  void shouldLearnThatToolIsSlow() {
+    var tool = new MainTool();
+
+    observe(lane, tool, 50, 200, 300);
+
+    assertThat(lane.isSlow(tool)).isTrue();
+  }
+
+  private void observe(SlowLane slowLane, MainTool tool, long... millis) {
+    for (var value : millis) {
+      slowLane.observed(tool, value * 1_000_000L);
+    }
+  }
+
+  @Test
+  void shouldNotConsiderToolSlowAfterOccasionalSlowValidation() {
+    var tool = new MainTool();
+
+    observe(lane, tool, 5, 10, 300);
+
+    assertThat(lane.isSlow(tool)).isFalse();
+  }
+
+  @Test
+  void shouldNotConsiderToolSlowWhenMedianIsJustAboveHalfTheThreshold() {
+    var defaultLane = new SlowLane(1, SlowLane.DEFAULT_THRESHOLD, () -> {});
+    var tool = new MainTool();
+
+    observe(defaultLane, tool, 270, 270, 270);
+
+    assertThat(defaultLane.isSlow(tool)).isFalse();
+  }
+
+  @Test
+  void shouldForgetThatToolIsSlowWhenItSpeedsUp() {
+    var tool = new MainTool();
+    observe(lane, tool, 200, 200, 200);
+
+    observe(lane, tool, 10, 10, 10, 10, 10);
+
+    assertThat(lane.isSlow(tool)).isFalse();
+  }
+}
@@ -0,0 +1,75 @@
+package org.setms.km.domain.model.orchestration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ValidationSchedulerTest {
+
+  @Test
+  void shouldRunIndependentWorkInParallel() {
+    var scheduler = new ValidationScheduler(2);
+    var started = new CountDownLatch(2);
+
+    scheduler.runAll(List.of("Bear", "Cheetah"), ignored -> awaitOther(started));
+
+    assertThat(started.getCount()).isZero();
+  }
+
+  private void awaitOther(CountDownLatch started) {
+    started.countDown();
+    try {
+      assertThat(started.await(5, TimeUnit.SECONDS)).as("Other work started").isTrue();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void shouldRunOnCallingThreadWithoutParallelism() {
+    var scheduler = new ValidationScheduler(1);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    scheduler.runAll(List.of("Bear", "Cheetah"), ignored -> threads.add(Thread.currentThread()));
+
+    assertThat(threads).containsExactly(Thread.currentThread());
+  }
+
+  @Test
+  void shouldPropagateFailure() {
+    var scheduler = new ValidationScheduler(2);
+
+    assertThatThrownBy(
+            () ->
+                scheduler.runAll(
+                    List.of("Bear", "Cheetah"),
+                    name -> {
+                      if (name.equals("Cheetah")) {
+                        throw new IllegalArgumentException(name);
+                      }
+                    }))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Cheetah");
+  }
+
+  @Test
+  void shouldHandleNestedWorkForSamePath() {
+    var scheduler = new ValidationScheduler(2);
+    Set<String> done = ConcurrentHashMap.newKeySet();
+
+    scheduler.inOrderFor(
+        "/main/Bear.mainArtifact",
+        () ->
+            scheduler.runAll(
+                List.of("Bear", "Cheetah"),
+                name -> scheduler.inOrderFor("/main/Bear.mainArtifact", () -> done.add(name))));
+
+    assertThat(done).containsExactlyInAnyOrder("Bear", "Cheetah");
+  }
+}
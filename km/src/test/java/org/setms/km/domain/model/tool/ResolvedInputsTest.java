@@ -4,6 +4,7 @@ import static java.util.UUID.randomUUID;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.setms.km.domain.model.artifact.FullyQualifiedName;
 
@@ -20,6 +21,28 @@ class ResolvedInputsTest {
     assertThat(inputs.get(Foo.class)).hasSize(3);
   }
 
+  @Test
+  void shouldResolveDeferredInputOnlyWhenRead() {
+    var resolutions = new AtomicInteger();
+    inputs.defer(
+        "foos",
+        () -> {
+          resolutions.incrementAndGet();
+          return List.of(newFoo());
+        });
+    inputs.defer(
+        "bars",
+        () -> {
+          throw new AssertionError("Resolved input that wasn't read");
+        });
+
+    var actual = inputs.get(Foo.class);
+
+    assertThat(actual).hasSize(1);
+    assertThat(inputs.get(Foo.class)).isEqualTo(actual);
+    assertThat(resolutions).hasValue(1);
+  }
+
   private Foo newFoo() {
     return new Foo(new FullyQualifiedName("package", randomUUID().toString().replace("-", "")));
   }
@@ -0,0 +1,116 @@
+package org.setms.km.domain.model.workspace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class ChangeQueueTest {
+
+  private final List<Collection<String>> changes = new CopyOnWriteArrayList<>();
+  private final List<Collection<String>> deletions = new CopyOnWriteArrayList<>();
+  private final ChangeQueue queue =
+      new ChangeQueue(
+          (changed, deleted) -> {
+            changes.add(changed);
+            deletions.add(deleted);
+          });
+
+  @Test
+  void shouldDeliverImmediatelyWithoutQuietWindow() {
+    queue.changed("/main/Bear.mainArtifact");
+    queue.deleted("/main/Cheetah.mainArtifact");
+
+    assertThat(changes).containsExactly(List.of("/main/Bear.mainArtifact"), List.of());
+    assertThat(deletions).containsExactly(List.of(), List.of("/main/Cheetah.mainArtifact"));
+  }
+
+  @Test
+  void shouldDeliverHeldChangesTogetherWhenReleased() {
+    queue.hold();
+    queue.changed("/main/Bear.mainArtifact");
+    queue.created("/main/Cheetah.mainArtifact");
+    queue.deleted("/main/Dingo.mainArtifact");
+    assertThat(changes).as("Changes delivered while held").isEmpty();
+
+    queue.release();
+
+    assertThat(changes)
+        .containsExactly(List.of("/main/Bear.mainArtifact", "/main/Cheetah.mainArtifact"));
+    assertThat(deletions).containsExactly(List.of("/main/Dingo.mainArtifact"));
+  }
+
+  @Test
+  void shouldCoalesceChangesToSamePath() {
+    queue.setQuietWindow(Duration.ofMinutes(1));
+    queue.changed("/main/Bear.mainArtifact");
+    queue.changed("/main/Cheetah.mainArtifact");
+    queue.changed("/main/Bear.mainArtifact");
+
+    queue.flush();
+
+    assertThat(changes)
+        .containsExactly(List.of("/main/Bear.mainArtifact", "/main/Cheetah.mainArtifact"));
+    assertThat(queue.statistics()).isEqualTo(new ChangeQueueStatistics(0, 3, 2, 1));
+    assertThat(queue.statistics().coalescingRatio()).isEqualTo(1.5);
+  }
+
+  @Test
+  void shouldDropDeletedPathThatWasCreatedAndDeletedAgain() {
+    queue.setQuietWindow(Duration.ofMinutes(1));
+    queue.deleted("/main/Bear.mainArtifact");
+    queue.flush();
+    queue.created("/main/Bear.mainArtifact");
+    queue.changed("/main/Bear.mainArtifact");
+    queue.deleted("/main/Bear.mainArtifact");
+    queue.deleted("/main/Cheetah.mainArtifact");
+
+    queue.flush();
+
+    assertThat(changes).containsExactly(List.of(), List.of());
+    assertThat(deletions)
+        .containsExactly(List.of("/main/Bear.mainArtifact"), List.of("/main/Cheetah.mainArtifact"));
+  }
+
+  @Test
+  void shouldDeliverDeletionOfExistingPathThatWasReportedAsCreated() {
+    queue.setQuietWindow(Duration.ofMinutes(1));
+    queue.created("/main/Bear.mainArtifact");
+    queue.deleted("/main/Bear.mainArtifact");
+
+    queue.flush();
+
+    assertThat(changes).containsExactly(List.of());
+    assertThat(deletions).containsExactly(List.of("/main/Bear.mainArtifact"));
+  }
+
+  @Test
+  void shouldDeliverChangeToPathThatWasDeletedAndCreated() {
+    queue.setQuietWindow(Duration.ofMinutes(1));
+    queue.deleted("/main/Bear.mainArtifact");
+    queue.created("/main/Bear.mainArtifact");
+    queue.deleted("/main/Bear.mainArtifact");
+    queue.created("/main/Bear.mainArtifact");
+
+    queue.flush();
+
+    assertThat(changes).containsExactly(List.of("/main/Bear.mainArtifact"));
+  }
+
+  @Test
+  void shouldDeliverAfterQuietWindow() {
+    queue.setQuietWindow(Duration.ofMillis(10));
+
+    queue.changed("/main/Bear.mainArtifact");
+
+    assertThat(queue.statistics().depth()).isEqualTo(1);
+    await()
+        .atMost(Duration.ofSeconds(1))
+        .untilAsserted(
+            () -> assertThat(changes).containsExactly(List.of("/main/Bear.mainArtifact")));
+  }
+}
@@ -0,0 +1,50 @@
+package org.setms.km.domain.model.workspace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class GlobSetTest {
+
+  private final Glob javaSources = new Glob("src/main/java", "**/*.java");
+  private final Glob tests = new Glob("src/test/java", "**/*Test.java");
+  private final Glob dockerfile = new Glob("/", "Dockerfile");
+  private final Glob everything = new Glob("", "**/*.*");
+  private final GlobSet<Glob> globs =
+      new GlobSet<>(List.of(javaSources, tests, dockerfile, everything), Function.identity());
+
+  @Test
+  void shouldFindAllMatchingGlobsInOrder() {
+    var actual = globs.matching("/project/src/test/java/ape/BearTest.java");
+
+    assertThat(actual).containsExactly(tests, everything);
+  }
+
+  @Test
+  void shouldMatchGlobsWithoutExtension() {
+    var actual = globs.matching("/Dockerfile");
+
+    assertThat(actual).containsExactly(dockerfile);
+  }
+
+  @Test
+  void shouldMatchLikeIndividualGlobs() {
+    var paths =
+        List.of(
+            "/src/main/java/ape/Bear.java",
+            "/src/main/resources/cheetah.properties",
+            "/Dockerfile",
+            "/build.gradle");
+
+    paths.forEach(
+        path ->
+            assertThat(globs.matching(path))
+                .as(path)
+                .containsExactlyElementsOf(
+                    List.of(javaSources, tests, dockerfile, everything).stream()
+                        .filter(glob -> glob.matches(path))
+                        .toList()));
+  }
+}
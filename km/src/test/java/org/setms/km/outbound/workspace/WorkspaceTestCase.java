@@ -124,6 +124,22 @@ public abstract class WorkspaceTestCase {
         .containsExactlyInAnyOrder("child1", "child2");
   }
 
+  @Test
+  void shouldKeepSiblingsWithSamePrefixApart() throws IOException {
+    var parent = workspace.root().select("ape");
+    createChild(parent, "bear/cheetah.dingo");
+    createChild(parent, "elephant.dingo");
+    createChild(workspace.root(), "ape-fox/giraffe.dingo");
+    createChild(workspace.root(), "ape.dingo");
+
+    parent.delete();
+
+    assertThat(parent.exists()).as("Deleted").isFalse();
+    assertThat(workspace.root().children())
+        .map(Resource::name)
+        .containsExactlyInAnyOrder("ape-fox", "ape.dingo");
+  }
+
   private Resource<? extends Resource<?>> createChild(
       Resource<? extends Resource<?>> parent, String child) throws IOException {
     var result = parent.select(child);
@@ -161,6 +177,17 @@ public abstract class WorkspaceTestCase {
     assertThat(deleted.get()).as("Deleted").isTrue();
   }
 
+  @Test
+  void shouldNotReportChangesToIgnoredResource() throws IOException {
+    var changed = new AtomicBoolean();
+    workspace.registerChangeBatchHandler(batch -> changed.set(true));
+    workspace.ignoreChangesTo(".km/bookkeeping");
+
+    createChild(workspace.root(), ".km/bookkeeping");
+
+    assertThat(changed.get()).as("Change reported").isFalse();
+  }
+
   @Test
   void shouldFindByGlob() throws IOException {
     createChild(workspace.root(), "ape/bear/cheetah.dingo");
@@ -217,6 +244,22 @@ public abstract class WorkspaceTestCase {
     assertThat(modified).as("Creation time").isBefore(now()).isAfter(rightNow);
   }
 
+  @Test
+  void shouldNotRewriteResourceWithSameContent() throws IOException, InterruptedException {
+    var resource = workspace.root().select("Ape.bear");
+    try (var writer = new PrintWriter(resource.writeTo())) {
+      writer.println("cheetah");
+    }
+    var modified = resource.lastModifiedAt();
+
+    Thread.sleep(10);
+    try (var writer = new PrintWriter(resource.writeTo())) {
+      writer.println("cheetah");
+    }
+
+    assertThat(resource.lastModifiedAt()).as("Modification time").isEqualTo(modified);
+  }
+
   @Test
   void shouldCheckResourceExistence() throws IOException {
     var resource = workspace.root().select("test.txt");
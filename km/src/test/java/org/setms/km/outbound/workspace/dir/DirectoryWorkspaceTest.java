@@ -1,7 +1,16 @@
 package org.setms.km.outbound.workspace.dir;
 
+import static java.nio.file.attribute.PosixFilePermission.OWNER_EXECUTE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
 import java.io.*;
+import java.nio.file.FileSystems;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.setms.km.domain.model.file.Files;
 import org.setms.km.domain.model.workspace.Workspace;
 import org.setms.km.outbound.workspace.WorkspaceTestCase;
@@ -20,4 +29,60 @@ class DirectoryWorkspaceTest extends WorkspaceTestCase {
   protected Workspace<?> newWorkspace() {
     return new DirectoryWorkspace(file);
   }
+
+  @Test
+  void shouldReportWriteOnce() throws IOException, InterruptedException {
+    var changes = new CopyOnWriteArrayList<String>();
+    getWorkspace().registerChangeBatchHandler(batch -> changes.addAll(batch.changed().keySet()));
+
+    getWorkspace().root().select("ape.bear").writeAsString("cheetah");
+    // Give the directory watcher time to report the write
+    Thread.sleep(500);
+
+    assertThat(changes).containsExactly("/ape.bear");
+    assertThat(file.list()).as("Temporary files left").containsExactly("ape.bear");
+  }
+
+  @Test
+  void shouldKeepPermissionsOfReplacedFile() throws IOException {
+    assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    var resource = getWorkspace().root().select("dingo");
+    resource.writeAsString("elephant");
+    var path = new File(file, "dingo").toPath();
+    java.nio.file.Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+    resource.writeAsString("fox");
+
+    assertThat(java.nio.file.Files.getPosixFilePermissions(path)).contains(OWNER_EXECUTE);
+    assertThat(resource.readAsString()).isEqualTo("fox");
+  }
+
+  @Test
+  void shouldFailWhenFileCantBeReplaced() throws IOException {
+    getWorkspace().root().select("giraffe/hyena").writeAsString("iguana");
+    var resource = getWorkspace().root().select("giraffe");
+
+    assertThatThrownBy(() -> resource.writeAsString("jaguar")).isInstanceOf(IOException.class);
+
+    assertThat(file.list()).as("Temporary files left").containsExactly("giraffe");
+    assertThat(getWorkspace().root().select("giraffe/hyena").readAsString()).isEqualTo("iguana");
+  }
+
+  @Test
+  void shouldReplaceDirectoryWithAnother() throws IOException {
+    var target = getWorkspace().root().select("koala");
+    target.select("old.html").writeAsString("old");
+    target.select("same.html").writeAsString("previous");
+    var replacement = getWorkspace().root().select("leopard");
+    replacement.select("same.html").writeAsString("current");
+    replacement.select("new/diagram.png").writeAsString("image");
+
+    target.replaceWith(replacement);
+
+    assertThat(target.select("old.html").exists()).as("Old file exists").isFalse();
+    assertThat(target.select("same.html").readAsString()).isEqualTo("current");
+    assertThat(target.select("new/diagram.png").readAsString()).isEqualTo("image");
+    assertThat(replacement.exists()).as("Replacement exists").isFalse();
+    assertThat(file.list()).as("Temporary files left").containsExactly("koala");
+  }
 }
@@ -0,0 +1,104 @@
+package org.setms.km.outbound.workspace.dir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.setms.km.domain.model.workspace.Glob;
+
+class FileTreeTest {
+
+  @TempDir private File root;
+  private FileTree tree;
+
+  @BeforeEach
+  void init() throws IOException {
+    write("src/ape/Bear.cheetah");
+    write("src/Dingo.elephant");
+    write("build/src/Fox.cheetah");
+    tree = new FileTree(root);
+    tree.scan();
+  }
+
+  private File write(String path) throws IOException {
+    var result = new File(root, path);
+    Files.createDirectories(result.getParentFile().toPath());
+    Files.writeString(result.toPath(), path);
+    return result;
+  }
+
+  @Test
+  void shouldFindMatchingFilesOutsideIgnoredDirectories() {
+    var actual = tree.matching(root, Glob.of("src", "cheetah"));
+
+    assertThat(actual)
+        .hasValueSatisfying(
+            files -> assertThat(files).map(File::getName).containsExactly("Bear.cheetah"));
+  }
+
+  @Test
+  void shouldNotAnswerForContentOfIgnoredDirectories() {
+    assertThat(tree.children(root))
+        .hasValueSatisfying(
+            files -> assertThat(files).map(File::getName).containsExactly("build", "src"));
+    assertThat(tree.children(new File(root, "build"))).isEmpty();
+    assertThat(tree.exists(new File(root, "build/src/Fox.cheetah"))).isEmpty();
+    assertThat(tree.matching(root, Glob.of("build/src", "cheetah"))).isEmpty();
+  }
+
+  @Test
+  void shouldOnlyIgnoreDirectoriesDirectlyBelowRoot() throws IOException {
+    var nested = write("src/ape/build/Giraffe.cheetah");
+    tree.scan();
+
+    var actual = tree.matching(root, Glob.of("src", "cheetah"));
+
+    assertThat(actual)
+        .hasValueSatisfying(
+            files -> assertThat(files).map(File::getName).contains("Giraffe.cheetah"));
+    assertThat(tree.exists(nested)).hasValue(true);
+  }
+
+  @Test
+  void shouldIndexDirectoryFromDiskWhenMissing() throws IOException {
+    var missed = write("src/hyena/Iguana.cheetah");
+
+    var actual = tree.children(missed.getParentFile());
+
+    assertThat(actual).hasValueSatisfying(files -> assertThat(files).containsExactly(missed));
+    assertThat(tree.exists(missed)).hasValue(true);
+  }
+
+  @Test
+  void shouldTrackChanges() throws IOException {
+    var added = write("src/ape/Giraffe.cheetah");
+    tree.added(added, false);
+    tree.removed(new File(root, "src/ape/Bear.cheetah"));
+
+    var actual = tree.matching(root, Glob.of("src", "cheetah"));
+
+    assertThat(actual).hasValueSatisfying(files -> assertThat(files).containsExactly(added));
+    assertThat(tree.exists(new File(root, "src/ape/Bear.cheetah"))).hasValue(false);
+  }
+
+  @Test
+  void shouldScanDirectoryMovedIn() throws IOException {
+    var moved = write("src/hyena/Iguana.cheetah");
+
+    tree.added(moved.getParentFile(), true);
+
+    assertThat(tree.exists(moved)).hasValue(true);
+  }
+
+  @Test
+  void shouldRemoveContentOfDeletedDirectory() {
+    tree.removed(new File(root, "src/ape"));
+
+    assertThat(tree.matching(root, Glob.of("src", "cheetah")))
+        .hasValueSatisfying(files -> assertThat(files).isEmpty());
+  }
+}
@@ -0,0 +1,27 @@
+package org.setms.km.test;
+
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import org.setms.km.domain.model.artifact.Artifact;
+import org.setms.km.domain.model.artifact.FullyQualifiedName;
+import org.setms.km.domain.model.artifact.Link;
+
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class LinkingArtifact extends Artifact {
+
+  private Link target;
+  private List<Link> others;
+  private List<LinkingArtifact> nested;
+
+  public LinkingArtifact(FullyQualifiedName fullyQualifiedName) {
+    super(fullyQualifiedName);
+  }
+}
@@ -1,9 +1,10 @@
 package org.setms.swe.domain.model.sdlc.code;
 
-import static org.setms.km.domain.model.file.Files.readAllAsString;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.setms.km.domain.model.artifact.Artifact;
@@ -20,13 +21,25 @@ class CodeParser implements Parser {
 
   @Override
   public RootObject parse(InputStream input) throws IOException {
-    return new RootObject(null, null, null).set("code", new DataString(readAllAsString(input)));
+    return parse(ByteBuffer.wrap(input.readAllBytes()));
+  }
+
+  @Override
+  public RootObject parse(ByteBuffer input) {
+    var code = UTF_8.decode(input).toString();
+    return new RootObject(null, null, null).set("code", new DataString(code));
   }
 
   @Override
   public <T extends Artifact> T parse(
       String resourceName, InputStream input, Class<T> type, boolean validate) throws IOException {
-    var code = readAllAsString(input);
+    return parse(resourceName, ByteBuffer.wrap(input.readAllBytes()), type, validate);
+  }
+
+  @Override
+  public <T extends Artifact> T parse(
+      String resourceName, ByteBuffer input, Class<T> type, boolean validate) throws IOException {
+    var code = UTF_8.decode(input).toString();
     var name = extractName(code, resourceName);
     try {
       var result = type.getConstructor(FullyQualifiedName.class).newInstance(name);
@@ -0,0 +1,44 @@
+package org.setms.swe.inbound.format;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+
+/** Input for ANTLR lexers. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class AntlrInput {
+
+  /**
+   * Turn UTF-8 encoded content into a character stream for a lexer. ASCII content, which is the
+   * norm, is copied once into an array of exactly the right size; other content is decoded first.
+   *
+   * @param content the content to lex
+   * @return the character stream
+   */
+  public static CharStream of(ByteBuffer content) {
+    var bytes = content.duplicate();
+    if (isAscii(bytes)) {
+      var array = new byte[bytes.remaining()];
+      bytes.get(array);
+      return CodePointCharStream.fromBuffer(CodePointBuffer.withBytes(ByteBuffer.wrap(array)));
+    }
+    var chars = UTF_8.decode(bytes);
+    var builder = CodePointBuffer.builder(chars.remaining());
+    builder.append(chars);
+    return CodePointCharStream.fromBuffer(builder.build());
+  }
+
+  private static boolean isAscii(ByteBuffer bytes) {
+    for (var i = bytes.position(); i < bytes.limit(); i++) {
+      if (bytes.get(i) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
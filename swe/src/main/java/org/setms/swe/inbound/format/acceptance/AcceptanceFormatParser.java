@@ -1,13 +1,12 @@
 package org.setms.swe.inbound.format.acceptance;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.setms.km.domain.model.format.Strings.initUpper;
 import static org.setms.km.domain.model.format.Strings.stripQuotesFrom;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
-import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.setms.km.domain.model.artifact.Artifact;
@@ -21,17 +20,23 @@ import org.setms.km.domain.model.format.Reference;
 import org.setms.km.domain.model.format.RootObject;
 import org.setms.sew.lang.acceptance.AcceptanceLexer;
 import org.setms.sew.lang.acceptance.AcceptanceParser;
+import org.setms.swe.inbound.format.AntlrInput;
 
 class AcceptanceFormatParser implements Parser {
 
   @Override
   public RootObject parse(InputStream input) throws IOException {
+    return parse(ByteBuffer.wrap(input.readAllBytes()));
+  }
+
+  @Override
+  public RootObject parse(ByteBuffer input) {
     return parseUsing(parserFrom(input));
   }
 
-  private AcceptanceParser parserFrom(InputStream input) throws IOException {
+  private AcceptanceParser parserFrom(ByteBuffer input) {
     return new AcceptanceParser(
-        new CommonTokenStream((new AcceptanceLexer(CharStreams.fromStream(input, UTF_8)))));
+        new CommonTokenStream((new AcceptanceLexer(AntlrInput.of(input)))));
   }
 
   private RootObject parseUsing(AcceptanceParser parser) {
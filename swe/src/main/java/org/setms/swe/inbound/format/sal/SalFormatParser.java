@@ -1,11 +1,11 @@
 package org.setms.swe.inbound.format.sal;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 import static org.setms.km.domain.model.format.Strings.initUpper;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -15,7 +15,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
-import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
@@ -31,11 +30,17 @@ import org.setms.km.domain.model.format.RootObject;
 import org.setms.km.domain.model.format.Strings;
 import org.setms.sew.lang.sal.SalLexer;
 import org.setms.sew.lang.sal.SalParser;
+import org.setms.swe.inbound.format.AntlrInput;
 
 class SalFormatParser implements Parser {
 
   @Override
   public RootObject parse(InputStream input) throws IOException {
+    return parse(ByteBuffer.wrap(input.readAllBytes()));
+  }
+
+  @Override
+  public RootObject parse(ByteBuffer input) {
     var sal = parseTreeFrom(input).sal();
     var result = parseRootObject(sal);
     if (result == null) {
@@ -65,9 +70,8 @@ class SalFormatParser implements Parser {
     return result;
   }
 
-  private SalParser parseTreeFrom(InputStream input) throws IOException {
-    return new SalParser(
-        new CommonTokenStream((new SalLexer(CharStreams.fromStream(input, UTF_8)))));
+  private SalParser parseTreeFrom(ByteBuffer input) {
+    return new SalParser(new CommonTokenStream((new SalLexer(AntlrInput.of(input)))));
   }
 
   private RootObject parseRootObject(SalParser.SalContext sal) {
@@ -48,6 +48,12 @@ public class CodeTool extends ArtifactTool<CodeArtifact> {
     return result;
   }
 
+  @Override
+  public boolean isSlow() {
+    // Validation builds and packages the code
+    return true;
+  }
+
   @Override
   public boolean validates(String path) {
     // Handle issues that aren't related to a specific artifact
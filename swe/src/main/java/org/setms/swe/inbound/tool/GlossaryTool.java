@@ -35,6 +35,11 @@ public class GlossaryTool extends ArtifactTool<Term> {
     return Set.of(terms());
   }
 
+  @Override
+  public boolean dependsOnlyOnLinkedArtifacts() {
+    return true;
+  }
+
   @Override
   public void validate(Term term, ResolvedInputs inputs, Collection<Diagnostic> diagnostics) {
     var terms = inputs.get(Term.class);
@@ -12,6 +12,7 @@ import static org.setms.km.domain.model.validation.Level.ERROR;
 import static org.setms.km.domain.model.validation.Validation.validate;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -25,6 +26,7 @@ import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.setms.km.domain.model.file.Files;
+import org.setms.km.domain.model.orchestration.ChangeRecorder;
 import org.setms.km.domain.model.orchestration.ProcessOrchestrator;
 import org.setms.km.domain.model.tool.ArtifactTool;
 import org.setms.km.domain.model.tool.Tools;
@@ -54,6 +56,9 @@ class EndToEndTest {
    * 5. Go to step 2 to start a new iteration.
    */
 
+  /** System property with the file to record the edit session to, for the replay benchmark. */
+  static final String RECORDING_PROPERTY = "e2e.recording";
+
   private final Collection<String> created = new HashSet<>();
   private final File root = new File("build/e2e");
   private Workspace<?> workspace;
@@ -74,7 +79,8 @@ class EndToEndTest {
 
   @Test
   void shouldGuideSoftwareEngineering() throws IOException {
-    try (var chat = new Chat("Human", "SEW", writers)) {
+    try (var chat = new Chat("Human", "SEW", writers);
+        var ignored = recordChangesWhenAsked()) {
       this.chat = chat;
       for (var iteration : loadIterations()) {
         chat.topic(iteration.getDirectory().getName());
@@ -87,6 +93,14 @@ class EndToEndTest {
     }
   }
 
+  private Closeable recordChangesWhenAsked() throws IOException {
+    var recording = System.getProperty(RECORDING_PROPERTY);
+    if (recording == null) {
+      return () -> {};
+    }
+    return new ChangeRecorder(workspace, new File(recording));
+  }
+
   private List<Iteration> loadIterations() {
     return childrenOf(new File("src/test/resources/e2e"))
         .sorted()
@@ -0,0 +1,40 @@
+package org.setms.swe.e2e;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.setms.km.domain.model.orchestration.ChangeRecorder;
+import org.setms.km.domain.model.orchestration.ReplayHarness;
+import org.setms.km.domain.model.orchestration.ReplayReport;
+import org.setms.km.outbound.workspace.memory.InMemoryWorkspace;
+import org.setms.swe.domain.model.sdlc.SdlcOrchestrator;
+
+/**
+ * Replays an edit session, by default the one recorded by {@linkplain EndToEndTest} when asked to,
+ * and reports how fast the SDLC orchestrator processed it. Given a baseline report, it fails when
+ * the replay is worse than the baseline by more than a tolerance.
+ *
+ * <p>Arguments: the recorded session, an optional baseline report, and an optional tolerance.
+ */
+public class ReplayBenchmark {
+
+  private static final File DEFAULT_RECORDING = new File("build/e2e-session.jsonl");
+  private static final double DEFAULT_TOLERANCE = 0.2;
+
+  public static void main(String[] args) throws Exception {
+    var recording = args.length > 0 ? new File(args[0]) : DEFAULT_RECORDING;
+    var report =
+        new ReplayHarness(InMemoryWorkspace::new, SdlcOrchestrator::new)
+            .replay(ChangeRecorder.load(recording));
+    System.out.println(report.toJson());
+    if (args.length < 2 || args[1].isBlank()) {
+      return;
+    }
+    var baseline = ReplayReport.fromJson(Files.readString(new File(args[1]).toPath()));
+    var tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+    var regressions = report.regressionsComparedTo(baseline, tolerance);
+    regressions.forEach(System.err::println);
+    if (!regressions.isEmpty()) {
+      System.exit(1);
+    }
+  }
+}